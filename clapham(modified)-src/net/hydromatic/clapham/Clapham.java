@@ -148,13 +148,13 @@ public class Clapham {
             IdentifierNode identifierNode = (IdentifierNode) expression;
             Symbol symbol = new Symbol(NodeType.NONTERM, identifierNode.s);
 //            grammar.symbolMap.put(symbol.name, symbol);
-            return new Graph(new Node(grammar, symbol, identifierNode.lineToColor, identifierNode.nodeColor, identifierNode.nodeFont));
+            return new Graph(new Node(grammar, symbol, identifierNode.highlightId, identifierNode.lineToColor, identifierNode.nodeColor, identifierNode.nodeFont));
         } else if (expression instanceof LiteralNode) {
             LiteralNode literalNode = (LiteralNode) expression;
             Symbol symbol = new Symbol(NodeType.TERM, literalNode.s);
             grammar.terminals.add(symbol);
 //            grammar.symbolMap.put(symbol.name, symbol);
-            return new Graph(new Node(grammar, symbol, literalNode.lineToColor, literalNode.nodeColor, literalNode.nodeFont));
+            return new Graph(new Node(grammar, symbol, literalNode.highlightId, literalNode.lineToColor, literalNode.nodeColor, literalNode.nodeFont));
         } else {
             throw new UnsupportedOperationException(
                 "unknown node type " + expression);
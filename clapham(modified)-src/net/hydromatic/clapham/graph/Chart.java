@@ -20,12 +20,14 @@
 */
 package net.hydromatic.clapham.graph;
 
-import org.apache.batik.svggen.SVGGraphics2D;
-
 import java.awt.*;
 import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
 import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * TODO:
@@ -119,13 +121,32 @@ public class Chart {
     /** the graphics object from the EBNFForm on which the drawing takes place */
     private final Grammar grammar;
 
-    final Graphics2D g;
+    Graphics2D g;
+
+    /** the primitives are recorded here while {@link #recordComponent}
+     * runs */
+    private DisplayList list;
+
+    /** the layout being calculated or drawn; read by the nodes */
+    Layout layout;
+
+    /** colors replacing the colors of the nodes, or null */
+    private ColorOverlay colorOverlay;
 
     public Chart(Grammar grammar, Graphics2D graphics) {
         this.grammar = grammar;
         this.g = graphics;
     }
 
+    /**
+     * Sets the graphics object to paint on. Layouts are cached by the
+     * grammar, so a symbol laid out on a scratch graphics with the same font
+     * metrics is painted on the final one without a second layout.
+     */
+    public void setGraphics(Graphics2D graphics) {
+        this.g = graphics;
+    }
+
     public Dimension getDimension() {
         assert xMin >= 0;
         assert yMin >= 0;
@@ -140,9 +161,38 @@ public class Chart {
     public void drawString(
         String text, Font font, Color color, float x, float y)
     {
-        g.setFont(font);
-        g.setColor(color);
-        g.drawString(text, x, y);
+        list.drawString(text, font, color, x, y);
+    }
+
+    /**
+     * Sets the colors replacing the colors of the nodes while drawing. The
+     * layout doesn't depend on the colors, so the same grammar and layouts
+     * can be drawn with any overlay.
+     *
+     * @param value Overlay, or null to draw the colors of the nodes
+     */
+    public void setColorOverlay(ColorOverlay value) {
+        colorOverlay = value;
+    }
+
+    public ColorOverlay getColorOverlay() {
+        return colorOverlay;
+    }
+
+    /** Returns the color of the lines leading to a node. */
+    Color getLineColor(Node node) {
+        if (colorOverlay == null || node.highlightId == null) {
+            return node.lineToColor;
+        }
+        return colorOverlay.getLineColor(node.highlightId, node.lineToColor);
+    }
+
+    /** Returns the color of the text and frame of a node. */
+    Color getNodeColor(Node node) {
+        if (colorOverlay == null || node.highlightId == null) {
+            return node.nodeColor;
+        }
+        return colorOverlay.getNodeColor(node.highlightId, node.nodeColor);
     }
 
     public void setCharFont(Font value) {
@@ -219,28 +269,70 @@ public class Chart {
         charColor = defaultCharColor;
     }
 
+    /**
+     * Paints a laid out symbol on the graphics object.
+     */
     public void drawComponent(Symbol s) {
         if (s == null) {
             return;
         }
+        recordComponent(s).replay(g);
+    }
+
+    /**
+     * Records the drawing of a symbol, laying it out first unless the grammar
+     * has a layout for the current settings already. The returned list can
+     * be painted any number of times without drawing the symbol again.
+     *
+     * <p>The chart is only used by the calling thread, the grammar and its
+     * layouts are only read, so several threads, each with its own chart,
+     * can record symbols of the same grammar at the same time.
+     */
+    public DisplayList recordComponent(Symbol s) {
+        final DisplayList recorded = new DisplayList();
+        if (s == null) {
+            return recorded;
+        }
+        final Color oldCharColor = charColor;
+        final Color oldLineColor = lineColor;
+        final Font oldCharFont = charFont;
+        xMin = Integer.MAX_VALUE;
+        yMin = Integer.MAX_VALUE;
+        xMax = Integer.MIN_VALUE;
+        yMax = Integer.MIN_VALUE;
+        list = recorded;
+        layout = calcDrawing(s);
+        try {
+            recordSymbol(s);
+        } finally {
+            list = null;
+            layout = null;
+            charColor = oldCharColor;
+            lineColor = oldLineColor;
+            charFont = oldCharFont;
+        }
+        recorded.setDimension(getDimension());
+        recorded.trim();
+        return recorded;
+    }
+
+    private void recordSymbol(Symbol s) {
         symbolSize = new Size(
-            s.graph.graphSize.getWidth()
+            layout.graphSize.getWidth()
                 + beginningXCoordinate
                 + componentGapWidth * 2,
-            s.graph.graphSize.getHeight()
+            layout.graphSize.getHeight()
                 + beginningYCoordinate
                 + componentGapHeight * 2
                 + 5);
 //			EbnfForm.Drawarea=new Bitmap(Node.getSymbolSize().getWidth(),Node.getSymbolSize().getHeight(),	System.Drawing.Imaging.PixelFormat.Format24bppRgb);
 
-        //decide either draw on visualized bitmap or record a metafile
-        g.setColor(Color.WHITE);
-        g.fillRect(
+        list.fillRect(
+            Color.WHITE,
             0,
             0,
             (int) symbolSize.getWidth(),
             (int) symbolSize.getHeight());
-        g.setColor(s.graph.l.nodeColor);
         drawString(
             s.name,
             titleFont,
@@ -248,39 +340,99 @@ public class Chart {
             beginningXCoordinate - 20,
             beginningYCoordinate - 40 + titleFont.getSize2D());
         //g.DrawRectangle(new Pen(Color.Orange,2),p.X,p.Y+30,s.graph.graphSize.getWidth(),s.graph.graphSize.getHeight());
-        g.setStroke(lineStroke);
-        g.setColor(s.graph.l.lineToColor);
-        g.drawLine(
+        list.drawLine(
+            getLineColor(s.graph.l),
+            lineStroke,
             beginningXCoordinate
                 - componentGapWidth / 4
                 - componentArcSize / 2,
-            (int) s.graph.l.posLine.y,
+            (int) layout.of(s.graph.l).posLine.y,
             beginningXCoordinate,
-            (int) s.graph.l.posLine.y);
+            (int) layout.of(s.graph.l).posLine.y);
         Point2D.Float p =
             new Point2D.Float(
                 beginningXCoordinate,
                 beginningYCoordinate - 30);
-        s.graph.l.drawComponents(this, p, s.graph.graphSize);
-//        final SizeMapper sizeMapper = new SizeMapper();
+        s.graph.l.drawComponents(this, p, layout.graphSize);
+//        final SizeMapper sizeMapper = new SizeMapper(layout);
 //        s.graph.l.accept(sizeMapper);
 //        s.graph.r.accept(sizeMapper);
-        //final Dimension dimension = getDimension();
-        //((SVGGraphics2D) g).setSVGCanvasSize(dimension);
+    }
+
+    /**
+     * Lays out a symbol and writes its diagram as an SVG document. The
+     * graphics object is only used for font metrics, nothing is painted on
+     * it.
+     *
+     * @param s Symbol to draw
+     * @param out Writer the document is streamed to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeSvg(Symbol s, Writer out) throws IOException {
+        final DisplayList recorded = recordComponent(s);
+        final SvgWriter svg = new SvgWriter(out);
+        svg.start(recorded.getWidth(), recorded.getHeight() + 5);
+        recorded.replay(svg);
+        svg.end();
     }
 
     public void calcDrawing() {
         for (Symbol s : grammar.nonterminals) {
-            s.graph.graphSize = s.graph.l.calcSize(this);
+            calcDrawing(s);
+        }
+        if (Grammar.TRACE) {
+            grammar.printNodes(System.out);
+        }
+    }
+
+    /**
+     * Calculates the layout of a single symbol; the graphs of the symbols
+     * are independent, so only the symbol being drawn has to be laid out.
+     *
+     * <p>The layout is cached by the grammar, keyed by the first node of the
+     * symbol's graph and the settings of the chart; a chart with the same
+     * settings gets the cached layout instead of calculating it again.
+     *
+     * @param s Symbol to lay out
+     * @return Layout of the symbol; must not be changed
+     */
+    public Layout calcDrawing(Symbol s) {
+        final List<Object> key = getLayoutKey(s);
+        final Layout cached = grammar.getLayout(key);
+        if (cached != null) {
+            return cached;
+        }
+        final Layout calculated = new Layout(s.graph.l);
+        final Layout previous = layout;
+        layout = calculated;
+        try {
+            calculated.graphSize = s.graph.l.calcSize(this);
             s.graph.l.setWrapSize(this);
             s.graph.l.calcPos(this, beginningYCoordinate);
-            if (Grammar.TRACE) {
-                System.out.println("\n\n" + s.graph.graphSize.toString());
-            }
+        } finally {
+            layout = previous;
         }
         if (Grammar.TRACE) {
-            grammar.printNodes(System.out);
+            System.out.println("\n\n" + calculated.graphSize.toString());
         }
+        return grammar.putLayout(key, calculated);
+    }
+
+    /**
+     * Returns the key of the layout of a symbol: everything the sizes and
+     * positions of its nodes depend on.
+     */
+    private List<Object> getLayoutKey(Symbol s) {
+        return Arrays.<Object>asList(
+            s.graph.l.n,
+            componentArcSize,
+            componentGapWidth,
+            componentGapHeight,
+            symbolGapHeight,
+            arrowSize,
+            charFont,
+            charColor,
+            g.getFontRenderContext());
     }
 
     // draws arrows for different directions
@@ -304,34 +456,32 @@ public class Chart {
     {
         expandBounds(x1, y1);
         expandBounds(x2, y2);
-        g.setColor(lineColor);
-        g.setStroke(lineStroke);
-        g.drawLine(x1, y1, x2, y2);
+        int[] xs;
+        int[] ys;
         switch (direction) {
         case RIGHT:
-            g.fillPolygon(
-                new int[] {x2, x2 - arrowSize * 2, x2 - arrowSize * 2},
-                new int[] {y2, y2 - arrowSize, y2 + arrowSize},
-                3);
+            xs = new int[] {x2, x2 - arrowSize * 2, x2 - arrowSize * 2};
+            ys = new int[] {y2, y2 - arrowSize, y2 + arrowSize};
             break;
         case UP:
-            g.fillPolygon(
-                new int[] {x2, x2 - arrowSize, x2 + arrowSize},
-                new int[] {y2, y2 + arrowSize * 2, y2 + arrowSize * 2},
-                3);
+            xs = new int[] {x2, x2 - arrowSize, x2 + arrowSize};
+            ys = new int[] {y2, y2 + arrowSize * 2, y2 + arrowSize * 2};
             break;
         case LEFT:
-            g.fillPolygon(
-                new int[] {x2, x2 + arrowSize * 2, x2 + arrowSize * 2},
-                new int[] {y2, y2 + arrowSize, y2 - arrowSize},
-                3);
+            xs = new int[] {x2, x2 + arrowSize * 2, x2 + arrowSize * 2};
+            ys = new int[] {y2, y2 + arrowSize, y2 - arrowSize};
             break;
         case DOWN:
-            g.fillPolygon(
-                new int[] {x2, x2 - arrowSize, x2 + arrowSize},
-                new int[] {y2, y2 - arrowSize * 2, y2 - arrowSize * 2},
-                3);
+            xs = new int[] {x2, x2 - arrowSize, x2 + arrowSize};
+            ys = new int[] {y2, y2 - arrowSize * 2, y2 - arrowSize * 2};
             break;
+        default:
+            xs = null;
+            ys = null;
+        }
+        list.drawLine(lineColor, lineStroke, x1, y1, x2, y2);
+        if (xs != null) {
+            list.fillPolygon(lineColor, xs, ys, 3);
         }
 	}
 
@@ -365,18 +515,20 @@ public class Chart {
         expandBounds(x - width, y + height);
         expandBounds(x + width, y + height);
         int startAngle = (int) startAngleF;
-        g.setStroke(stroke);
-        g.setColor(color);
-        g.drawArc(
-            (int) x,
-            (int) y,
-            (int) width,
-            (int) height,
+        startAngle =
             startAngle == 180 ? 90
                 : startAngle == 90 ? 180
                     : startAngle == 270 ? 0
                         : startAngle == 0 ? 270
-                            : startAngle,
+                            : startAngle;
+        list.drawArc(
+            color,
+            stroke,
+            (int) x,
+            (int) y,
+            (int) width,
+            (int) height,
+            startAngle,
             (int) arcAngle);
     }
 
@@ -418,9 +570,8 @@ public class Chart {
     {
         expandBounds(x, y);
         expandBounds(x1, y1);
-        g.setColor(lineColor);
-        g.setStroke(lineStroke);
-        g.drawLine((int) x, (int) y, (int) x1, (int) y1);
+        list.drawLine(
+            lineColor, lineStroke, (int) x, (int) y, (int) x1, (int) y1);
     }
 
     void drawRectangle(
@@ -433,9 +584,8 @@ public class Chart {
     {
         expandBounds(x, y);
         expandBounds(x + width, y + height);
-        g.setColor(color);
-        g.setStroke(stroke);
-        g.drawRect((int) x, (int) y, (int) width, (int) height);
+        list.drawRect(
+            color, stroke, (int) x, (int) y, (int) width, (int) height);
     }
 
     interface NodeVisitor {
@@ -443,15 +593,20 @@ public class Chart {
     }
 
     static class SizeMapper implements NodeVisitor {
+        private final Layout layout;
         private int x1 = Integer.MAX_VALUE;
         private int y1 = Integer.MAX_VALUE;
         private int x2 = Integer.MIN_VALUE;
         private int y2 = Integer.MIN_VALUE;
 
+        SizeMapper(Layout layout) {
+            this.layout = layout;
+        }
+
         public void visit(Node node) {
-            foo(node.posBegin);
-            foo(node.posEnd);
-            foo(node.posLine);
+            foo(layout.of(node).posBegin);
+            foo(layout.of(node).posEnd);
+            foo(layout.of(node).posLine);
             node.visitChildren(this);
         }
 
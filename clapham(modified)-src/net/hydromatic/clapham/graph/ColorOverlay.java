@@ -0,0 +1,73 @@
+/*
+// Clapham generates railroad diagrams to represent computer language grammars.
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.hydromatic.clapham.graph;
+
+import java.awt.Color;
+import java.util.HashMap;
+
+/**
+ * Colors that replace the colors of some nodes while a chart is drawn.
+ *
+ * <p>A node is identified by the highlight id it was created with, see
+ * {@link net.hydromatic.clapham.parser.IdentifierNode#highlightId}. Since
+ * the colors are looked up when drawing, the graph of a grammar and its
+ * layouts can be built once and drawn with a different overlay every time.
+ *
+ * <p>An overlay must not be changed once it is used for drawing; it can then
+ * be shared by several threads.
+ */
+public class ColorOverlay {
+    private final HashMap<String, Color[]> colors =
+        new HashMap<String, Color[]>();
+
+    /**
+     * Sets the colors of a node.
+     *
+     * @param highlightId Id of the node
+     * @param lineColor Color of the lines leading to the node
+     * @param nodeColor Color of the text and frame of the node
+     */
+    public void put(String highlightId, Color lineColor, Color nodeColor) {
+        colors.put(highlightId, new Color[] {lineColor, nodeColor});
+    }
+
+    /** Copies all colors of another overlay into this one. */
+    public void putAll(ColorOverlay overlay) {
+        colors.putAll(overlay.colors);
+    }
+
+    public boolean contains(String highlightId) {
+        return colors.containsKey(highlightId);
+    }
+
+    public Color getLineColor(String highlightId, Color defaultColor) {
+        final Color[] nodeColors = colors.get(highlightId);
+        return nodeColors == null ? defaultColor : nodeColors[0];
+    }
+
+    public Color getNodeColor(String highlightId, Color defaultColor) {
+        final Color[] nodeColors = colors.get(highlightId);
+        return nodeColors == null ? defaultColor : nodeColors[1];
+    }
+
+    public int size() {
+        return colors.size();
+    }
+}
+
+// End ColorOverlay.java
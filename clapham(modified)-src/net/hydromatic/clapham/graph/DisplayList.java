@@ -0,0 +1,352 @@
+/*
+// Clapham generates railroad diagrams to represent computer language grammars.
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.hydromatic.clapham.graph;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The drawing of one diagram, recorded by {@link Chart#recordComponent}.
+ *
+ * <p>Every primitive is stored as an opcode followed by its arguments in a
+ * flat int array; colors, strokes, fonts and strings are stored once in a
+ * pool and referenced by index. A recorded diagram takes a few kilobytes
+ * and can be replayed on any {@link Graphics2D}: scaling and clipping are
+ * taken from the graphics, and the colors can be replaced while replaying,
+ * so neither needs a new layout.
+ *
+ * <p>A display list is not changed after it has been recorded, so it can be
+ * replayed by several threads at the same time.
+ */
+public class DisplayList {
+    private static final int LINE = 0;
+    private static final int RECT = 1;
+    private static final int FILL_RECT = 2;
+    private static final int POLYGON = 3;
+    private static final int ARC = 4;
+    private static final int TEXT = 5;
+
+    /** extra room around the bounds of a primitive for the line width */
+    private static final int CLIP_MARGIN = 2;
+
+    private int[] ops = new int[256];
+    private int size;
+    private final List<Object> objects = new ArrayList<Object>();
+    private final HashMap<Object, Integer> objectIds =
+        new HashMap<Object, Integer>();
+    private int width;
+    private int height;
+
+    /**
+     * Replaces colors while replaying, for example to show a diagram in a
+     * different color scheme.
+     */
+    public interface ColorMap {
+        Color map(Color color);
+    }
+
+    /**
+     * Returns the size of the drawing, the same as {@link Chart#getDimension}
+     * after drawing it.
+     */
+    public Dimension getDimension() {
+        return new Dimension(width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Returns the approximate number of bytes used by the list. */
+    public long getMemorySize() {
+        // the pooled objects are mostly shared with the grammar
+        return (long) ops.length * 4 + objects.size() * 16L + 64;
+    }
+
+    void setDimension(Dimension dimension) {
+        width = dimension.width;
+        height = dimension.height;
+    }
+
+    /** Shrinks the op array to the recorded size. */
+    void trim() {
+        if (ops.length > size) {
+            int[] trimmed = new int[size];
+            System.arraycopy(ops, 0, trimmed, 0, size);
+            ops = trimmed;
+        }
+    }
+
+    void drawLine(Color color, Stroke stroke, int x1, int y1, int x2, int y2) {
+        add(LINE, id(color), id(stroke), x1, y1, x2, y2);
+    }
+
+    void drawRect(
+        Color color, Stroke stroke, int x, int y, int width, int height)
+    {
+        add(RECT, id(color), id(stroke), x, y, width, height);
+    }
+
+    void fillRect(Color color, int x, int y, int width, int height) {
+        add(FILL_RECT, id(color), x, y, width, height);
+    }
+
+    void fillPolygon(Color color, int[] xs, int[] ys, int count) {
+        ensureCapacity(3 + count * 2);
+        ops[size++] = POLYGON;
+        ops[size++] = id(color);
+        ops[size++] = count;
+        for (int i = 0; i < count; i++) {
+            ops[size++] = xs[i];
+            ops[size++] = ys[i];
+        }
+    }
+
+    void drawArc(
+        Color color,
+        Stroke stroke,
+        int x,
+        int y,
+        int width,
+        int height,
+        int startAngle,
+        int arcAngle)
+    {
+        add(
+            ARC, id(color), id(stroke), x, y, width, height, startAngle,
+            arcAngle);
+    }
+
+    void drawString(String text, Font font, Color color, float x, float y) {
+        add(
+            TEXT, id(text), id(font), id(color), Float.floatToIntBits(x),
+            Float.floatToIntBits(y));
+    }
+
+    /** Paints the diagram on the graphics object. */
+    public void replay(Graphics2D g) {
+        replay(g, null);
+    }
+
+    /**
+     * Paints the diagram on the graphics object. Primitives outside the clip
+     * of the graphics are skipped.
+     *
+     * @param g Graphics to paint on, with any transform and clip
+     * @param colorMap Colors to use instead of the recorded ones, or null
+     */
+    public void replay(Graphics2D g, ColorMap colorMap) {
+        Object[] pool = getPool(colorMap);
+        Rectangle clip = g.getClipBounds();
+        int i = 0;
+        while (i < size) {
+            switch (ops[i]) {
+            case LINE:
+                if (visible(clip, Math.min(ops[i + 3], ops[i + 5]),
+                        Math.min(ops[i + 4], ops[i + 6]),
+                        Math.abs(ops[i + 5] - ops[i + 3]),
+                        Math.abs(ops[i + 6] - ops[i + 4])))
+                {
+                    g.setColor((Color) pool[ops[i + 1]]);
+                    g.setStroke((Stroke) pool[ops[i + 2]]);
+                    g.drawLine(ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6]);
+                }
+                i += 7;
+                break;
+            case RECT:
+                if (visible(clip, ops[i + 3], ops[i + 4], ops[i + 5],
+                        ops[i + 6]))
+                {
+                    g.setColor((Color) pool[ops[i + 1]]);
+                    g.setStroke((Stroke) pool[ops[i + 2]]);
+                    g.drawRect(ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6]);
+                }
+                i += 7;
+                break;
+            case FILL_RECT:
+                g.setColor((Color) pool[ops[i + 1]]);
+                g.fillRect(ops[i + 2], ops[i + 3], ops[i + 4], ops[i + 5]);
+                i += 6;
+                break;
+            case POLYGON:
+                int count = ops[i + 2];
+                int[] xs = new int[count];
+                int[] ys = new int[count];
+                for (int j = 0; j < count; j++) {
+                    xs[j] = ops[i + 3 + j * 2];
+                    ys[j] = ops[i + 4 + j * 2];
+                }
+                g.setColor((Color) pool[ops[i + 1]]);
+                g.fillPolygon(xs, ys, count);
+                i += 3 + count * 2;
+                break;
+            case ARC:
+                if (visible(clip, ops[i + 3], ops[i + 4], ops[i + 5],
+                        ops[i + 6]))
+                {
+                    g.setColor((Color) pool[ops[i + 1]]);
+                    g.setStroke((Stroke) pool[ops[i + 2]]);
+                    g.drawArc(
+                        ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6],
+                        ops[i + 7], ops[i + 8]);
+                }
+                i += 9;
+                break;
+            case TEXT:
+                Font font = (Font) pool[ops[i + 2]];
+                float x = Float.intBitsToFloat(ops[i + 4]);
+                float y = Float.intBitsToFloat(ops[i + 5]);
+                // the width isn't known without font metrics, only the
+                // height is checked
+                float fontSize = font.getSize2D();
+                if (clip == null
+                    || (y + fontSize > clip.y
+                        && y - fontSize * 2 < clip.y + clip.height
+                        && x < clip.x + clip.width))
+                {
+                    g.setFont(font);
+                    g.setColor((Color) pool[ops[i + 3]]);
+                    g.drawString((String) pool[ops[i + 1]], x, y);
+                }
+                i += 6;
+                break;
+            default:
+                throw new IllegalStateException("unknown op " + ops[i]);
+            }
+        }
+    }
+
+    /** Writes the diagram as SVG elements, see {@link SvgWriter#start}. */
+    public void replay(SvgWriter svg) {
+        Object[] pool = objects.toArray();
+        int i = 0;
+        while (i < size) {
+            switch (ops[i]) {
+            case LINE:
+                svg.drawLine(
+                    (Color) pool[ops[i + 1]], (Stroke) pool[ops[i + 2]],
+                    ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6]);
+                i += 7;
+                break;
+            case RECT:
+                svg.drawRect(
+                    (Color) pool[ops[i + 1]], (Stroke) pool[ops[i + 2]],
+                    ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6]);
+                i += 7;
+                break;
+            case FILL_RECT:
+                svg.fillRect(
+                    (Color) pool[ops[i + 1]], ops[i + 2], ops[i + 3],
+                    ops[i + 4], ops[i + 5]);
+                i += 6;
+                break;
+            case POLYGON:
+                int count = ops[i + 2];
+                int[] xs = new int[count];
+                int[] ys = new int[count];
+                for (int j = 0; j < count; j++) {
+                    xs[j] = ops[i + 3 + j * 2];
+                    ys[j] = ops[i + 4 + j * 2];
+                }
+                svg.fillPolygon((Color) pool[ops[i + 1]], xs, ys, count);
+                i += 3 + count * 2;
+                break;
+            case ARC:
+                svg.drawArc(
+                    (Color) pool[ops[i + 1]], (Stroke) pool[ops[i + 2]],
+                    ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6],
+                    ops[i + 7], ops[i + 8]);
+                i += 9;
+                break;
+            case TEXT:
+                svg.drawString(
+                    (String) pool[ops[i + 1]], (Font) pool[ops[i + 2]],
+                    (Color) pool[ops[i + 3]],
+                    Float.intBitsToFloat(ops[i + 4]),
+                    Float.intBitsToFloat(ops[i + 5]));
+                i += 6;
+                break;
+            default:
+                throw new IllegalStateException("unknown op " + ops[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the pooled objects, with the colors replaced by the color map;
+     * each color is only mapped once, not once per primitive.
+     */
+    private Object[] getPool(ColorMap colorMap) {
+        Object[] pool = objects.toArray();
+        if (colorMap != null) {
+            for (int i = 0; i < pool.length; i++) {
+                if (pool[i] instanceof Color) {
+                    pool[i] = colorMap.map((Color) pool[i]);
+                }
+            }
+        }
+        return pool;
+    }
+
+    private static boolean visible(
+        Rectangle clip, int x, int y, int width, int height)
+    {
+        return clip == null
+            || (x - CLIP_MARGIN < clip.x + clip.width
+                && x + width + CLIP_MARGIN > clip.x
+                && y - CLIP_MARGIN < clip.y + clip.height
+                && y + height + CLIP_MARGIN > clip.y);
+    }
+
+    private int id(Object object) {
+        Integer id = objectIds.get(object);
+        if (id == null) {
+            id = objects.size();
+            objects.add(object);
+            objectIds.put(object, id);
+        }
+        return id;
+    }
+
+    private void add(int... values) {
+        ensureCapacity(values.length);
+        System.arraycopy(values, 0, ops, size, values.length);
+        size += values.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > ops.length) {
+            int[] grown = new int[Math.max(ops.length * 2, size + extra)];
+            System.arraycopy(ops, 0, grown, 0, size);
+            ops = grown;
+        }
+    }
+}
+
+// End DisplayList.java
@@ -22,6 +22,7 @@ package net.hydromatic.clapham.graph;
 
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.PrintStream;
 
 /**
@@ -32,9 +33,14 @@ import java.io.PrintStream;
 * @since Aug 26, 2008
 */
 public class Grammar {
+    // The maps and lists are filled while the grammar is built and only read
+    // afterwards, so a built grammar can be shared by several threads; the
+    // layouts are kept apart from the nodes, see Chart.calcDrawing(Symbol).
     public final Map<String,Symbol> symbolMap = new HashMap<String, Symbol>();
     public final Map<Symbol, Graph> ruleMap = new HashMap<Symbol, Graph>();
     final List<Node> nodes = new ArrayList<Node>();
+    private final ConcurrentHashMap<List<Object>, Layout> layouts =
+        new ConcurrentHashMap<List<Object>, Layout>();
 
     public static boolean TRACE = false;
 
@@ -54,6 +60,20 @@ public class Grammar {
         }
     }
 
+    /** Returns the cached layout with the given key, or null. */
+    Layout getLayout(List<Object> key) {
+        return layouts.get(key);
+    }
+
+    /**
+     * Caches a calculated layout. If another thread cached one with the same
+     * key first, that one is returned, so all charts use the same layout.
+     */
+    Layout putLayout(List<Object> key, Layout layout) {
+        final Layout previous = layouts.putIfAbsent(key, layout);
+        return previous != null ? previous : layout;
+    }
+
     public void setOptimizeGraph(boolean value) {
         this.optimizeGraph = value;
     }
@@ -224,7 +244,7 @@ public class Grammar {
 
                         //if \n is the only subelement
                         if (i.up || i.next == null) {
-                            Node eps = new Node(this, NodeType.EPS, null, n.lineToColor, n.nodeColor, n.nodeFont);
+                            Node eps = new Node(this, NodeType.EPS, null, n.highlightId, n.lineToColor, n.nodeColor, n.nodeFont);
                             parent.sub = eps;
                             eps.up = i.up;
                             eps.next = i.next;
@@ -297,7 +317,7 @@ public class Grammar {
                     n.sub = n.sub.sub;
                 }
                 if (containsIter) {
-                    Node iter = new Node(this, NodeType.ITER, n.sub, n.lineToColor, n.nodeColor, n.nodeFont);
+                    Node iter = new Node(this, NodeType.ITER, n.sub, n.highlightId, n.lineToColor, n.nodeColor, n.nodeFont);
                     iter.next = n.next;
                     if (n == begin) {
                         if (parent == null) {
@@ -364,7 +384,7 @@ public class Grammar {
                         if (parent == null) { //beginning of graph
                             //if graph only consists of this iter/opt, then replace it with an eps node
                             if (n.next == null) {
-                                Node eps = new Node(this, NodeType.EPS, null, n.lineToColor, n.nodeColor, n.nodeFont);
+                                Node eps = new Node(this, NodeType.EPS, null, n.highlightId, n.lineToColor, n.nodeColor, n.nodeFont);
                                 s.graph.l = eps;
                                 s.graph.r = eps;
                             } else { //remove that node
@@ -438,7 +458,7 @@ public class Grammar {
 
         //remove all empty iter/opts
         //make sure, that at least one eps Node will exist
-        Node eps = new Node(this, NodeType.EPS, null, alt.lineToColor, alt.nodeColor, alt.nodeFont);
+        Node eps = new Node(this, NodeType.EPS, null, alt.highlightId, alt.lineToColor, alt.nodeColor, alt.nodeFont);
         eps.next = alt.sub;
         alt.sub = eps;
         Node i = alt.sub;
@@ -530,7 +550,7 @@ public class Grammar {
 
             if (!(alt.sub.typ == NodeType.EPS
                 && (alt.sub.next == null || alt.sub.up))) {
-                Node eps = new Node(this, NodeType.EPS, null, alt.lineToColor, alt.nodeColor, alt.nodeFont);
+                Node eps = new Node(this, NodeType.EPS, null, alt.highlightId, alt.lineToColor, alt.nodeColor, alt.nodeFont);
                 eps.next = alt.next;
                 eps.up = true;
                 AltNode a1 = new AltNode(this, eps);
@@ -584,7 +604,7 @@ public class Grammar {
                             //EbnfForm.WriteLine("Iter node optimized.");
                             matchFound = true;
                             //replace the iter node and the nodes before by the rerun node
-                            Node re = new Node(this, NodeType.RERUN, k, i.lineToColor, i.nodeColor, i.nodeFont);
+                            Node re = new Node(this, NodeType.RERUN, k, i.highlightId, i.lineToColor, i.nodeColor, i.nodeFont);
                             if (j == n) {
 
                                 if (parent == null) {
@@ -30,7 +30,6 @@ public class Graph {
 
     public Node l;    // left end of graph = head
     public Node r;    // right end of graph = list of nodes to be linked to successor graph
-    public Size graphSize;
 
     public Graph() {
         l = null;
@@ -0,0 +1,108 @@
+/*
+// Clapham generates railroad diagrams to represent computer language grammars.
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.hydromatic.clapham.graph;
+
+import java.awt.Font;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The layout of the graph of one symbol, calculated by
+ * {@link Chart#calcDrawing(Symbol)} for one set of chart settings.
+ *
+ * <p>The sizes and positions of the nodes are kept here, keyed by node
+ * number, instead of in the nodes themselves. The graph of a grammar is
+ * therefore never changed by a layout, and a layout is not changed once it
+ * has been calculated: both can be shared by several threads, and a layout
+ * is cached by the grammar and reused by every chart with the same
+ * settings.
+ */
+public class Layout {
+    private final HashMap<Integer, NodeLayout> nodes =
+        new HashMap<Integer, NodeLayout>();
+    Size graphSize;
+
+    /**
+     * Creates an empty layout for every node of a graph.
+     *
+     * @param head First node of the graph of a symbol
+     */
+    Layout(Node head) {
+        final List<Node> pending = new ArrayList<Node>();
+        pending.add(head);
+        while (!pending.isEmpty()) {
+            final Node node = pending.remove(pending.size() - 1);
+            if (node == null || nodes.containsKey(node.n)) {
+                continue;
+            }
+            nodes.put(node.n, new NodeLayout(node.nodeFont));
+            pending.add(node.next);
+            pending.add(node.down);
+            pending.add(node.sub);
+            pending.add(node.itergraph);
+        }
+    }
+
+    /** Returns the size of the whole graph. */
+    public Size getGraphSize() {
+        return graphSize;
+    }
+
+    /** Returns the layout of a node of the graph. */
+    NodeLayout of(Node node) {
+        final NodeLayout nodeLayout = nodes.get(node.n);
+        if (nodeLayout == null) {
+            throw new IllegalArgumentException(
+                "node " + node.n + " is not part of the graph");
+        }
+        return nodeLayout;
+    }
+
+    /**
+     * The size and position of one node.
+     */
+    static class NodeLayout {
+        // the required size to draw the node
+        Size size = new Size(0, 0);
+        // the required size to draw a construct of alts or the size of the
+        // first component in the special rerun-node (itergraph!=null)
+        Size altSize = new Size(0, 0);
+        // the size of the second component in the special rerun Node
+        // (itergraph!=null)
+        Size iterSize = new Size(0, 0);
+        // the point in the left above corner of the component
+        final Point2D.Float posBegin = new Point2D.Float(0, 0);
+        // the point of the line of the component
+        final Point2D.Float posLine = new Point2D.Float(0, 0);
+        // the point in the left down corner of the component
+        final Point2D.Float posEnd = new Point2D.Float(0, 0);
+        // true if the Node is in the first Level
+        boolean firstLevel;
+        TextBox textBox;
+        // font of the node; the font of the chart if the node has none
+        Font font;
+
+        NodeLayout(Font font) {
+            this.font = font;
+        }
+    }
+}
+
+// End Layout.java
@@ -42,12 +42,11 @@ public class Node {
 	public boolean  up;			// true: "next" leads to successor in enclosing structure
 	public Symbol   sym;		// nt, t: symbol represented by this node
 	public Node		itergraph;	// rerun: points to the b in "a {b a}", null if "a {a}"
-	private boolean  firstLevel; // true if the Node is in the first Level
-    private TextBox textBox;
 
-    public Node(Grammar grammar, Symbol sym, Color lineToColor, Color nodeColor, Font nodeFont) {
+    public Node(Grammar grammar, Symbol sym, String highlightId, Color lineToColor, Color nodeColor, Font nodeFont) {
 		this.typ = sym.typ;
         this.sym = sym;
+		this.highlightId = highlightId;
 		this.lineToColor = lineToColor;
 		this.nodeColor = nodeColor;
 		this.nodeFont = nodeFont;
@@ -55,8 +54,9 @@ public class Node {
 		grammar.nodes.add(this);
 	}
 	
-	public Node(Grammar grammar, NodeType typ, Node sub, Color lineToColor, Color nodeColor, Font nodeFont) {
+	public Node(Grammar grammar, NodeType typ, Node sub, String highlightId, Color lineToColor, Color nodeColor, Font nodeFont) {
 		this.typ = typ;
+		this.highlightId = highlightId;
 		this.lineToColor = lineToColor;
 		this.nodeColor = nodeColor;
 		this.nodeFont = nodeFont;
@@ -67,6 +67,7 @@ public class Node {
 
 	public Node(Grammar grammar, NodeType typ, Node sub) {
 		this.typ = typ;
+		this.highlightId = null;
 		//This line color is used when drawing anything != sequence nodes
 		this.lineToColor = Color.BLACK;
 		//Debug, to see if this problem ever arises
@@ -81,14 +82,13 @@ public class Node {
     //----------------- for drawing ----------------------
 
     /*****************other variables needed for the drawing********/
-    Size 	size 		= new Size(0,0);			// the required size to draw the node
-	private Size 	altSize 	= new Size(0,0);			// the required size to draw a construct of alts or the size of the firstcomponent in the special rerun-node (itergraph!=null)
-	private Size 	iterSize 	= new Size(0,0);			// the size of the second component in the special rerun Node (itergraph!=null)
-	final Float posBegin 	= new Float(0,0);			// the point in the left above corner of the component
-	public final Float posLine 	= new Float(0,0);			// the point of the line of the component
-	final Float posEnd 		= new Float(0,0);			// the point in the left down corner of the component
+    // sizes and positions are kept in the Layout of the chart, see
+    // Chart.calcDrawing(Symbol)
 	Color lineToColor, nodeColor;
 	Font nodeFont;
+	// the colors can be replaced by the ColorOverlay of the chart, see
+	// Chart.getLineColor(Node)
+	final String highlightId;
 
     public void unparse(StringBuffer buf) {
         switch (typ) {
@@ -152,30 +152,31 @@ public class Node {
         Node n = this;
         float maxH = 0;
         while (n != null) {
-            n.firstLevel = true;
+            final Layout.NodeLayout l = chart.layout.of(n);
+            l.firstLevel = true;
             switch (n.typ) {
             case WRAP:
-                n.size.setHeight(maxH);
+                l.size.setHeight(maxH);
                 maxH = 0;
                 break;
             case ITER:
                 if (maxH
-                    < n.size.getHeight()
+                    < l.size.getHeight()
                     + (chart.getFontHeight() + chart.componentGapHeight)
                     / 2) {
                     maxH =
-                        n.size.getHeight()
+                        l.size.getHeight()
                             + (chart.getFontHeight()
                             + chart.componentGapHeight) / 2;
                 }
                 break;
             default:
-                if (maxH < n.size.getHeight()
-                    || maxH < n.altSize.getHeight()) {
-                    if (n.altSize.getHeight() != 0) {
-                        maxH = n.altSize.getHeight();
+                if (maxH < l.size.getHeight()
+                    || maxH < l.altSize.getHeight()) {
+                    if (l.altSize.getHeight() != 0) {
+                        maxH = l.altSize.getHeight();
                     } else {
-                        maxH = n.size.getHeight();
+                        maxH = l.size.getHeight();
                     }
                 }
                 break;
@@ -195,31 +196,32 @@ public class Node {
         int realHeight = n.calcHeight(chart);
         Size maxTotalSize = new Size(0, 0);
         while (n != null && samelevel) {
+            final Layout.NodeLayout l = chart.layout.of(n);
             switch (n.typ) {
             case TERM:
             case NONTERM:
-				if( n.nodeFont == null )
+				if( l.font == null )
 				{
-					n.nodeFont = chart.charFont;
+					l.font = chart.charFont;
 				}
-                n.textBox =
+                l.textBox =
                     new TextBox(
-                        chart, n.sym.name, n.nodeFont, chart.charColor);
-                n.size.setHeight(
-                    n.textBox.height
+                        chart, n.sym.name, l.font, chart.charColor);
+                l.size.setHeight(
+                    l.textBox.height
                         + chart.symbolGapHeight * 2
                         + chart.componentGapHeight);
-                n.size.setWidth(
-                    n.textBox.width
+                l.size.setWidth(
+                    l.textBox.width
                         + chart.symbolGapWidth * 2);
                 if (n.typ == NodeType.TERM) {
-                    n.size.maxWidth(
+                    l.size.maxWidth(
                         chart.componentArcSize);
                 }
                 if (!n.up
                     && n.next != null
                     && n.next.typ == NodeType.WRAP
-                    && n.next.size.getHeight() == 0) {
+                    && chart.layout.of(n.next).size.getHeight() == 0) {
                     if (!n.next.up
                         && n.next.next != null
                         && (n.next.next.typ == NodeType.TERM
@@ -234,18 +236,18 @@ public class Node {
                 }
                 break;
             case EPS:
-                n.size.setHeight(
+                l.size.setHeight(
                     chart.getFontHeight() + chart.componentGapHeight);
-                n.size.setWidth(chart.componentGapWidth);
+                l.size.setWidth(chart.componentGapWidth);
                 break;
             case OPT:
-                n.size = n.sub.calcSize(chart);
-                n.size.incWidth(chart.componentGapWidth * 2);
-                n.size.incHeight(chart.componentGapHeight / 2);
+                l.size = n.sub.calcSize(chart);
+                l.size.incWidth(chart.componentGapWidth * 2);
+                l.size.incHeight(chart.componentGapHeight / 2);
                 break;
             case ITER:
-                n.size = n.sub.calcSize(chart);
-                n.size.incWidth(chart.componentGapWidth * 2);
+                l.size = n.sub.calcSize(chart);
+                l.size.incWidth(chart.componentGapWidth * 2);
                 break;
             case WRAP:
                 maxTotalSize.incHeight(
@@ -256,26 +258,27 @@ public class Node {
                 s.setWidth(0);
                 break;
             case RERUN:
-                n.size = n.sub.calcSize(chart);
+                l.size = n.sub.calcSize(chart);
                 if (n.itergraph != null) {
-                    n.altSize = n.size;
-                    n.size.maxWidth(n.itergraph.calcSize(chart).getWidth());
-                    n.size.incHeight(n.itergraph.calcSize(chart).getHeight());
-                    n.iterSize = n.itergraph.calcSize(chart);
+                    l.altSize = l.size;
+                    l.size.maxWidth(n.itergraph.calcSize(chart).getWidth());
+                    l.size.incHeight(n.itergraph.calcSize(chart).getHeight());
+                    l.iterSize = n.itergraph.calcSize(chart);
                 } else {
-                    n.size.incHeight(chart.componentGapHeight / 2);
+                    l.size.incHeight(chart.componentGapHeight / 2);
                 }
-                n.size.incWidth(chart.componentGapWidth * 2);
+                l.size.incWidth(chart.componentGapWidth * 2);
                 break;
             case ALT: {
                 Node a = n;
                 int maxH = -chart.componentGapHeight;
                 float maxW = 0;
                 while (a != null) {
-                    a.size = a.sub.calcSize(chart);
-                    maxH += a.size.getHeight();
-                    if (a.size.getWidth() > maxW) {
-                        maxW = a.size.getWidth();
+                    final Layout.NodeLayout la = chart.layout.of(a);
+                    la.size = a.sub.calcSize(chart);
+                    maxH += la.size.getHeight();
+                    if (la.size.getWidth() > maxW) {
+                        maxW = la.size.getWidth();
                     }
                     a = a.down;
                 }
@@ -286,8 +289,8 @@ public class Node {
                 maxW += 2 * chart.componentGapWidth;
                 maxH += chart.componentGapHeight;
 
-                n.altSize.setHeight(maxH);
-                n.altSize.setWidth(maxW);
+                l.altSize.setHeight(maxH);
+                l.altSize.setWidth(maxW);
             }
             break;
             }
@@ -296,14 +299,14 @@ public class Node {
                     (chart.getFontHeight() + chart.componentGapHeight) / 2;
             }
             if (n.typ == NodeType.ALT) {
-                s.maxHeight(n.altSize.getHeight());
-                s.incWidth(n.altSize.getWidth());
+                s.maxHeight(l.altSize.getHeight());
+                s.incWidth(l.altSize.getWidth());
             } else {
-                s.maxHeight(n.size.getHeight());
-                s.incWidth(n.size.getWidth());
+                s.maxHeight(l.size.getHeight());
+                s.incWidth(l.size.getWidth());
             }
             if (n.typ == NodeType.ITER) {
-                s.maxHeight(n.size.getHeight() + iterCompensation);
+                s.maxHeight(l.size.getHeight() + iterCompensation);
             }
             if (n.up) {
                 samelevel = false;
@@ -331,8 +334,14 @@ public class Node {
         boolean samelevel = true;                    //next node in same level?
         while (n != null && samelevel) {
             if (n.typ == NodeType.NONTERM || n.typ == NodeType.TERM) {
-                if (realHeight < n.size.getHeight()) {
-                    realHeight = n.size.getHeight();
+                // same height calcSize gives the node; computed here so the
+                // result does not depend on a previous layout of the graph
+                final float height =
+                    chart.getFontHeight()
+                        + chart.symbolGapHeight * 2
+                        + chart.componentGapHeight;
+                if (realHeight < height) {
+                    realHeight = height;
                 }
             } else if (n.typ == NodeType.ITER) {
                 int tmpHeight = 0;
@@ -374,68 +383,69 @@ public class Node {
         int realHeight = calcHeight(chart);
         boolean samelevel = true;                    //next node in same level?
         while (n != null && samelevel) {
+            final Layout.NodeLayout l = chart.layout.of(n);
             if (n.typ == NodeType.NONTERM || n.typ == NodeType.TERM) {
-                n.posLine.y = posBegin + realHeight / 2;
-                n.posBegin.y =
-                    n.posLine.y
-                        - (n.size.getHeight() - chart.componentGapHeight) / 2;
-                n.posEnd.y =
-                    n.posLine.y
-                        + (n.size.getHeight() - chart.componentGapHeight) / 2;
+                l.posLine.y = posBegin + realHeight / 2;
+                l.posBegin.y =
+                    l.posLine.y
+                        - (l.size.getHeight() - chart.componentGapHeight) / 2;
+                l.posEnd.y =
+                    l.posLine.y
+                        + (l.size.getHeight() - chart.componentGapHeight) / 2;
             } else if (n.typ == NodeType.EPS) {
-                n.posLine.y = posBegin + n.size.getHeight() / 2;
-                n.posBegin.y = posBegin;
-                n.posEnd.y = posBegin + n.size.getHeight();
+                l.posLine.y = posBegin + l.size.getHeight() / 2;
+                l.posBegin.y = posBegin;
+                l.posEnd.y = posBegin + l.size.getHeight();
             } else if (n.typ == NodeType.OPT) {
-                n.posLine.y = posBegin + realHeight / 2;
-                n.posBegin.y = posBegin;
-                n.posEnd.y = posBegin + n.size.getHeight();
-                n.sub.calcPos(chart, n.posBegin.y);
+                l.posLine.y = posBegin + realHeight / 2;
+                l.posBegin.y = posBegin;
+                l.posEnd.y = posBegin + l.size.getHeight();
+                n.sub.calcPos(chart, l.posBegin.y);
             } else if (n.typ == NodeType.RERUN) {
-                n.posLine.y = posBegin + realHeight / 2;
-                n.posBegin.y = posBegin;
-                n.posEnd.y = posBegin + n.size.getHeight();
+                l.posLine.y = posBegin + realHeight / 2;
+                l.posBegin.y = posBegin;
+                l.posEnd.y = posBegin + l.size.getHeight();
                 if (n.itergraph != null) {
                     n.itergraph.calcPos(
                         chart,
-                        posBegin + n.altSize.getHeight());
+                        posBegin + l.altSize.getHeight());
                 }
-                n.sub.calcPos(chart, n.posBegin.y);
+                n.sub.calcPos(chart, l.posBegin.y);
             } else if (n.typ == NodeType.ITER) {
                 if (realHeight == 0) {
-                    n.posLine.y = posBegin + realHeight / 2;
-                    n.posBegin.y = posBegin;
-                    n.posEnd.y = posBegin + n.size.getHeight();
+                    l.posLine.y = posBegin + realHeight / 2;
+                    l.posBegin.y = posBegin;
+                    l.posEnd.y = posBegin + l.size.getHeight();
                 } else {
-                    n.posLine.y = posBegin + realHeight / 2;
-                    n.posBegin.y =
+                    l.posLine.y = posBegin + realHeight / 2;
+                    l.posBegin.y =
                         posBegin
                             + (chart.getFontHeight() + chart.componentGapHeight)
                             / 2;
-                    n.posEnd.y = n.posBegin.y + n.size.getHeight();
+                    l.posEnd.y = l.posBegin.y + l.size.getHeight();
                 }
-                n.sub.calcPos(chart, n.posLine.y);
-            } else if (n.typ == NodeType.WRAP && firstLevel) {
-                n.posLine.y = posBegin + realHeight / 2;
-                n.posEnd.y = posBegin + n.size.getHeight();
-                posBegin = posBegin + n.size.getHeight();
+                n.sub.calcPos(chart, l.posLine.y);
+            } else if (n.typ == NodeType.WRAP && chart.layout.of(this).firstLevel) {
+                l.posLine.y = posBegin + realHeight / 2;
+                l.posEnd.y = posBegin + l.size.getHeight();
+                posBegin = posBegin + l.size.getHeight();
             } else if (n.typ == NodeType.ALT) {
-                n.posLine.y = posBegin + realHeight / 2;
-                n.posBegin.y = posBegin;
-                n.posEnd.y = posBegin + n.altSize.getHeight();
+                l.posLine.y = posBegin + realHeight / 2;
+                l.posBegin.y = posBegin;
+                l.posEnd.y = posBegin + l.altSize.getHeight();
                 if (n.sub.typ == NodeType.ITER
                     && n.calcHeight(chart) != 0
-                    && n.altSize.getHeight() != 0) {
+                    && l.altSize.getHeight() != 0) {
                     posBegin +=
                         (chart.getFontHeight() + chart.componentGapHeight) / 2;
                 }
                 n.sub.calcPos(chart, posBegin);
                 if (n.down != null) {
-                    n.down.calcPos(chart, posBegin + n.size.getHeight());
+                    n.down.calcPos(chart, posBegin + l.size.getHeight());
                 }
                 if (n.sub.typ == NodeType.ITER
                     && n.calcHeight(chart) != 0
-                    && n.altSize.getHeight() != 0) {
+                    && l.altSize.getHeight() != 0) {
                     posBegin -=
                         (chart.getFontHeight() + chart.componentGapHeight) / 2;
                 }
@@ -459,9 +469,10 @@ public class Node {
         boolean samelevel = true; // next node in same level?
 
         while (n != null && samelevel) {
-			chart.charColor = n.nodeColor;
-			chart.lineColor = n.lineToColor;
-			chart.charFont = n.nodeFont;
+            final Layout.NodeLayout l = chart.layout.of(n);
+			chart.charColor = chart.getNodeColor(n);
+			chart.lineColor = chart.getLineColor(n);
+			chart.charFont = l.font;
             switch (n.typ) {
             case TERM:
             case NONTERM:
@@ -470,96 +481,98 @@ public class Node {
                         Chart.RERUN_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y - chart.componentGapHeight / 2,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y - chart.componentGapHeight / 2,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
                 if (n.typ == NodeType.TERM) {
                     // the quarter Arcs
                     final float foo =
-                        (n.size.getHeight() - chart.componentGapHeight) / 2;
+                        (l.size.getHeight() - chart.componentGapHeight) / 2;
                     chart.drawArcCorner(
                         p.x,
-                        n.posBegin.y,
+                        l.posBegin.y,
                         foo,
                         180);
                     chart.drawArcCorner(
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         foo,
                         90);
                     chart.drawArcCorner(
-                        p.x + n.size.getWidth() - foo,
-                        n.posBegin.y,
+                        p.x + l.size.getWidth() - foo,
+                        l.posBegin.y,
                         foo,
                         270);
                     chart.drawArcCorner(
-                        p.x + n.size.getWidth() - foo,
-                        n.posLine.y,
+                        p.x + l.size.getWidth() - foo,
+                        l.posLine.y,
                         foo,
                         0);
 
 					if (false)
-                    n.textBox.drawAtCenter(
+                    l.textBox.drawAtCenter(
+                        chart,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth() - foo,
-                        n.posLine.y - n.posBegin.y);
+                        l.posBegin.y,
+                        l.size.getWidth() - foo,
+                        l.posLine.y - l.posBegin.y);
 
                     // the short vertical and horizontal lines between the quarter Arcs
                     final float quarterHeight =
-                        (n.size.getHeight() - chart.componentGapHeight)
+                        (l.size.getHeight() - chart.componentGapHeight)
                             / 4;
                     chart.drawLine(
                         p.x + quarterHeight - 1,
-                        n.posBegin.y,
-                        p.x + n.size.getWidth() - quarterHeight + 1,
-                        n.posBegin.y);
+                        l.posBegin.y,
+                        p.x + l.size.getWidth() - quarterHeight + 1,
+                        l.posBegin.y);
                     chart.drawLine(
                         p.x + quarterHeight - 1,
-                        n.posEnd.y,
-                        p.x + n.size.getWidth() - quarterHeight + 1,
-                        n.posEnd.y);
+                        l.posEnd.y,
+                        p.x + l.size.getWidth() - quarterHeight + 1,
+                        l.posEnd.y);
                     chart.drawLine(
                         p.x,
-                        n.posLine.y + quarterHeight + 1,
+                        l.posLine.y + quarterHeight + 1,
                         p.x,
-                        n.posLine.y - quarterHeight - 1);
+                        l.posLine.y - quarterHeight - 1);
                     chart.drawLine(
-                        p.x + n.size.getWidth(),
-                        n.posLine.y + quarterHeight + 1,
-                        p.x + n.size.getWidth(),
-                        n.posLine.y - quarterHeight - 1);
+                        p.x + l.size.getWidth(),
+                        l.posLine.y + quarterHeight + 1,
+                        p.x + l.size.getWidth(),
+                        l.posLine.y - quarterHeight - 1);
                 } else {
 					// A: FRAME AROUND Component
-                    n.posBegin.x = p.x;
-                    n.posEnd.x = p.x + n.size.getWidth();
+                    // the layout only holds the vertical positions, the
+                    // component starts at p.x
                     chart.drawRectangle(
                         chart.lineColor,
                         chart.lineStroke,
-                        n.posBegin.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight() - chart.componentGapHeight);
+                        p.x,
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight() - chart.componentGapHeight);
 					if( false )
-                    n.textBox.drawAtCenter(
-                        n.posBegin.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight() - chart.componentGapHeight);
+                    l.textBox.drawAtCenter(
+                        chart,
+                        p.x,
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight() - chart.componentGapHeight);
                 }
                 if (Grammar.TRACE) {
                     System.out.println("text=" + n.sym.name);
-                    System.out.println("n.posBegin.y=" + n.posBegin.y);
+                    System.out.println("n.posBegin.y=" + l.posBegin.y);
                     System.out.println(
                         "chart.getFontHeight()=" + chart.getFontHeight());
-                    System.out.println("n.size=" + n.size.getHeight());
+                    System.out.println("n.size=" + l.size.getHeight());
                     System.out.println(
-                        "2=" + +(n.size.getHeight()
+                        "2=" + +(l.size.getHeight()
                                  - chart.componentGapHeight));
                     System.out.println(
                         "3="
-                        + (n.size.getHeight() - chart.componentGapHeight - chart
+                        + (l.size.getHeight() - chart.componentGapHeight - chart
                             .getFontHeight()) / 2);
                 }
                 //if (false)
@@ -567,18 +580,18 @@ public class Node {
                     n.sym.name,
                     chart.charFont,
                     chart.charColor,
-                    p.x + (n.size.getWidth() - n.textBox.width) / 2,
-                    n.posBegin.y
-                        + (n.size.getHeight() - chart.componentGapHeight)
+                    p.x + (l.size.getWidth() - l.textBox.width) / 2,
+                    l.posBegin.y
+                        + (l.size.getHeight() - chart.componentGapHeight)
                         - chart.symbolGapHeight - 2);
 				// A: first arrow (head) pointing to the very first component (only the first component)
                 chart.drawArrow(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     Grammar.Direction.RIGHT);
-                p.x += n.size.getWidth();
+                p.x += l.size.getWidth();
                 // draw lines between t and nt nodes
 				// A: Lines between each sequence! component
                 if (!n.up && n.next != null
@@ -586,10 +599,10 @@ public class Node {
                     || n.next.typ == NodeType.NONTERM)) {
                     chart.drawArrow(
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         p.x
                             + chart.componentGapWidth / 2,
-                        n.posLine.y,
+                        l.posLine.y,
                         Grammar.Direction.RIGHT);
                     p.x += chart.componentGapWidth / 2;
                 }
@@ -597,13 +610,13 @@ public class Node {
                 if (!n.up
                     && n.next != null
                     && n.next.typ == NodeType.WRAP
-                    && n.next.size.getHeight() == 0) {
+                    && chart.layout.of(n.next).size.getHeight() == 0) {
                     chart.drawArrow(
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         p.x
                             + chart.componentGapWidth / 2,
-                        n.posLine.y,
+                        l.posLine.y,
                         Grammar.Direction.RIGHT);
                     p.x += chart.componentGapWidth / 2;
                 }
@@ -615,16 +628,16 @@ public class Node {
                         Chart.EPS_COLOR,
                         chart.lineStroke,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
-                    p.x + n.size.getWidth(),
-                    n.posLine.y);
+                    l.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y);
                 break;
             case OPT:
 			// A: Don't know about this entire section :|
@@ -633,35 +646,35 @@ public class Node {
                         Chart.EPS_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 // the two short lines at the beginning and the end
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x + chart.componentGapWidth,
-                    n.posLine.y);
+                    l.posLine.y);
                 chart.drawLine(
-                    p.x + n.size.getWidth(),
-                    n.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y,
                     p.x
-                        + n.size.getWidth()
+                        + l.size.getWidth()
                         - chart.componentGapWidth,
-                    n.posLine.y);
+                    l.posLine.y);
                 // the quarter Arcs
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         - chart.componentArcSize / 2,
-                    n.posLine.y,
+                    l.posLine.y,
                     270);
                 chart.drawArcCorner(
                     p.x + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentArcSize
                         - chart.componentGapHeight / 2,
                     90);
@@ -669,15 +682,15 @@ public class Node {
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y,
+                        + l.size.getWidth(),
+                    l.posLine.y,
                     180);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posEnd.y
+                        + l.size.getWidth(),
+                    l.posEnd.y
                         - chart.componentArcSize
                         - chart.componentGapHeight / 2,
                     0);
@@ -686,38 +699,38 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentArcSize / 2
                         - chart.componentGapHeight / 2 + 1);
                 chart.drawLine(
                     p.x - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y
+                        + l.size.getWidth(),
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posEnd.y
+                        + l.size.getWidth(),
+                    l.posEnd.y
                         - chart.componentArcSize / 2
                         - chart.componentGapHeight / 2 + 1);
                 // the the long horizontal line between the quarter Arcs
                 chart.drawLine(
                     p.x + chart.componentGapWidth / 4
                         + chart.componentArcSize,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentGapHeight / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize
-                        + n.size.getWidth() + 1,
-                    n.posEnd.y
+                        + l.size.getWidth() + 1,
+                    l.posEnd.y
                         - chart.componentGapHeight / 2);
 
                 n.sub.drawComponents(
@@ -725,8 +738,8 @@ public class Node {
                     new Float(
                         p.x + chart.componentGapWidth,
                         0),
-                    n.size);
-                p.x += n.size.getWidth();
+                    l.size);
+                p.x += l.size.getWidth();
                 break;
             case RERUN:
 			// A: Don't know about this entire section :|
@@ -736,30 +749,30 @@ public class Node {
                             Chart.RERUN_COLOR,
                             Chart.STROKE1,
                             p.x,
-                            n.posBegin.y,
-                            n.size.getWidth(),
-                            n.size.getHeight());
+                            l.posBegin.y,
+                            l.size.getWidth(),
+                            l.size.getHeight());
                     }
 
                     // the two short lines at the beginning and the end
                     chart.drawLine(
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         p.x + chart.componentGapWidth,
-                        n.posLine.y);
+                        l.posLine.y);
                     chart.drawLine(
-                        p.x + n.size.getWidth(),
-                        n.posLine.y,
+                        p.x + l.size.getWidth(),
+                        l.posLine.y,
                         p.x
-                            + n.size.getWidth()
+                            + l.size.getWidth()
                             - chart.componentGapWidth,
-                        n.posLine.y);
+                        l.posLine.y);
                     // the quarter Arcs
                     chart.drawArcCorner(
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posEnd.y
+                        l.posEnd.y
                             - chart.componentGapHeight / 2
                             - chart.componentArcSize,
                         90);
@@ -767,14 +780,14 @@ public class Node {
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posLine.y,
+                        l.posLine.y,
                         180);
                     chart.drawArcCorner(
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize * 3 / 2
-                            + n.size.getWidth(),
-                        n.posEnd.y
+                            + l.size.getWidth(),
+                        l.posEnd.y
                             - chart.componentGapHeight / 2
                             - chart.componentArcSize,
                         0);
@@ -782,34 +795,34 @@ public class Node {
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize * 3 / 2
-                            + n.size.getWidth(),
-                        n.posLine.y,
+                            + l.size.getWidth(),
+                        l.posLine.y,
                         270);
                     // the short vertical lines between the quarter Arcs
                     chart.drawLine(
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posLine.y
+                        l.posLine.y
                             + chart.componentArcSize / 2,
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posEnd.y
+                        l.posEnd.y
                             - chart.componentGapHeight / 2
                             - chart.componentArcSize / 2 + 1);
                     chart.drawLine(
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2
-                            + n.size.getWidth(),
-                        n.posLine.y
+                            + l.size.getWidth(),
+                        l.posLine.y
                             + chart.componentArcSize / 2,
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2
-                            + n.size.getWidth(),
-                        n.posEnd.y
+                            + l.size.getWidth(),
+                        l.posEnd.y
                             - chart.componentGapHeight / 2
                             - chart.componentArcSize / 2 + 1);
                     // the the long horizontal line between the quarter Arcs
@@ -817,13 +830,13 @@ public class Node {
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize - 1,
-                        n.posEnd.y
+                        l.posEnd.y
                             - chart.componentGapHeight / 2,
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize
-                            + n.size.getWidth() + 1,
-                        n.posEnd.y
+                            + l.size.getWidth() + 1,
+                        l.posEnd.y
                             - chart.componentGapHeight / 2);
 
                     n.sub.drawComponents(
@@ -831,142 +844,144 @@ public class Node {
                         new Float(
                             p.x + chart.componentGapWidth,
                             0),
-                        n.size);
-                    p.x += n.size.getWidth();
+                        l.size);
+                    p.x += l.size.getWidth();
                 } else {
+                    final Layout.NodeLayout iterLayout = chart.layout.of(n.itergraph);
                     if (chart.showBorders) {
                         chart.drawRectangle(
                             Chart.RERUN1_COLOR,
                             Chart.STROKE1,
                             p.x,
-                            n.posBegin.y,
-                            n.size.getWidth(),
-                            n.size.getHeight());
+                            l.posBegin.y,
+                            l.size.getWidth(),
+                            l.size.getHeight());
                     }
 
                     // the two short lines at the beginning and the end of the first component
                     chart.drawLine(
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         p.x
-                            + n.size.getWidth() / 2
-                            - n.altSize.getWidth() / 2
+                            + l.size.getWidth() / 2
+                            - l.altSize.getWidth() / 2
                             - 1,
-                        n.posLine.y);
+                        l.posLine.y);
                     chart.drawLine(
                         p.x
-                            + n.size.getWidth() / 2
-                            + n.altSize.getWidth() / 2
+                            + l.size.getWidth() / 2
+                            + l.altSize.getWidth() / 2
                             + 1,
-                        n.posLine.y,
+                        l.posLine.y,
                         p.x
-                            + n.size.getWidth(),
-                        n.posLine.y);
+                            + l.size.getWidth(),
+                        l.posLine.y);
                     // the quarter Arcs
                     chart.drawArcCorner(
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.itergraph.posLine.y
+                        iterLayout.posLine.y
                             - chart.componentArcSize,
                         90);
                     chart.drawArcCorner(
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posLine.y,
+                        l.posLine.y,
                         180);
                     chart.drawArcCorner(
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize * 3 / 2
-                            + n.size.getWidth(),
-                        n.itergraph.posLine.y
+                            + l.size.getWidth(),
+                        iterLayout.posLine.y
                             - chart.componentArcSize,
                         0);
                     chart.drawArcCorner(
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize * 3 / 2
-                            + n.size.getWidth(),
-                        n.posLine.y,
+                            + l.size.getWidth(),
+                        l.posLine.y,
                         270);
                     // the short vertical lines between the quarter Arcs
                     chart.drawLine(
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posLine.y
+                        l.posLine.y
                             + chart.componentArcSize / 2,
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.itergraph.posLine.y
+                        iterLayout.posLine.y
                             - chart.componentArcSize / 2 + 1);
                     chart.drawLine(
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2
-                            + n.size.getWidth(),
-                        n.posLine.y
+                            + l.size.getWidth(),
+                        l.posLine.y
                             + chart.componentArcSize / 2,
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2
-                            + n.size.getWidth(),
-                        n.itergraph.posLine.y
+                            + l.size.getWidth(),
+                        iterLayout.posLine.y
                             - chart.componentArcSize / 2 + 1);
                     // the two short lines at the beginning and the end of the second component
                     chart.drawLine(
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize,
-                        n.itergraph.posLine.y,
+                        iterLayout.posLine.y,
                         p.x
-                            + n.size.getWidth() / 2
-                            - n.iterSize.getWidth() / 2
+                            + l.size.getWidth() / 2
+                            - l.iterSize.getWidth() / 2
                             - 1,
-                        n.itergraph.posLine.y);
+                        iterLayout.posLine.y);
                     chart.drawLine(
                         p.x
-                            + n.size.getWidth() / 2
-                            + n.iterSize.getWidth() / 2
+                            + l.size.getWidth() / 2
+                            + l.iterSize.getWidth() / 2
                             + 1,
-                        n.itergraph.posLine.y,
+                        iterLayout.posLine.y,
                         p.x
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize
-                            + n.size.getWidth()
+                            + l.size.getWidth()
                             + 1,
-                        n.itergraph.posLine.y);
+                        iterLayout.posLine.y);
 
                     n.itergraph.drawComponentsInverse(
                         chart,
                         new Float(
                             p.x
-                                + n.size.getWidth() / 2
-                                + n.iterSize.getWidth() / 2,
-                            n.posEnd.y),
-                        n.size);
+                                + l.size.getWidth() / 2
+                                + l.iterSize.getWidth() / 2,
+                            l.posEnd.y),
+                        l.size);
                     n.sub.drawComponents(
                         chart,
                         new Float(
                             p.x
-                                + n.size.getWidth() / 2
-                                - n.altSize.getWidth() / 2,
-                            n.posEnd.y), n.size);
-                    p.x += n.size.getWidth();
+                                + l.size.getWidth() / 2
+                                - l.altSize.getWidth() / 2,
+                            l.posEnd.y), l.size);
+                    p.x += l.size.getWidth();
                 }
                 break;
             case ITER:
+                final Layout.NodeLayout subLayout = chart.layout.of(n.sub);
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Chart.ITER_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 // the quarter Arcs
@@ -974,127 +989,128 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.sub.posLine.y
+                    subLayout.posLine.y
                         - chart.componentArcSize,
                     90);
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y,
+                    l.posLine.y,
                     180);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.sub.posLine.y
+                        + l.size.getWidth(),
+                    subLayout.posLine.y
                         - chart.componentArcSize,
                     0);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posLine.y,
+                        + l.size.getWidth(),
+                    l.posLine.y,
                     270);
                 // the short vertical lines between the quarter Arcs
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.sub.posLine.y
+                    subLayout.posLine.y
                         - chart.componentArcSize / 2 + 1);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y
+                        + l.size.getWidth(),
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.sub.posLine.y
+                        + l.size.getWidth(),
+                    subLayout.posLine.y
                         - chart.componentArcSize / 2 + 1);
                 // the two short horizontal lines between the quater Arcs and the components
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize - 1,
-                    n.sub.posLine.y,
+                    subLayout.posLine.y,
                     p.x
                         + chart.componentGapWidth,
-                    n.sub.posLine.y);
+                    subLayout.posLine.y);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth
-                        + n.size.getWidth(),
-                    n.sub.posLine.y,
+                        + l.size.getWidth(),
+                    subLayout.posLine.y,
                     p.x
-                        + n.size.getWidth()
+                        + l.size.getWidth()
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize + 1,
-                    n.sub.posLine.y);
+                    subLayout.posLine.y);
                 // the long horizontal line in the middle
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
-                    p.x + n.size.getWidth(),
-                    n.posLine.y);
+                    l.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y);
 
                 n.sub.drawComponentsInverse(
                     chart,
                     new Float(
-                        p.x - chart.componentGapWidth + n.size.getWidth(),
+                        p.x - chart.componentGapWidth + l.size.getWidth(),
                         0),
-                    n.size);
-                p.x += n.size.getWidth();
+                    l.size);
+                p.x += l.size.getWidth();
                 break;
             case WRAP:
-                if (n.size.getHeight() != 0
+                if (l.size.getHeight() != 0
                     && n.next != null) {
+                    final Layout.NodeLayout nextLayout = chart.layout.of(n.next);
 
                     // the short horizontal line after the first component
                     chart.drawLine(
-                        p.x, n.posLine.y, p.x
-                        + chart.componentGapWidth / 4 + 1, n.posLine.y);
+                        p.x, l.posLine.y, p.x
+                        + chart.componentGapWidth / 4 + 1, l.posLine.y);
                     // the short horizontal line at the beginning of the second component
                     chart.drawLine(
                         chart.beginningXCoordinate,
-                        n.next.posLine.y,
+                        nextLayout.posLine.y,
                         chart.beginningXCoordinate
                             - chart.componentGapWidth / 4,
-                        n.next.posLine.y);
+                        nextLayout.posLine.y);
                     // the quarter Arcs
                     chart.drawArcCorner(
                         p.x + chart.componentGapWidth / 4 -
                             chart.componentArcSize / 2,
-                        n.posLine.y,
+                        l.posLine.y,
                         270);
                     chart.drawArcCorner(
                         p.x + chart.componentGapWidth / 4
                             - chart.componentArcSize / 2,
-                        n.posEnd.y
+                        l.posEnd.y
                             - chart.componentArcSize,
                         0);
                     chart.drawArcCorner(
                         (float) (chart.beginningXCoordinate
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2),
-                        n.posEnd.y,
+                        l.posEnd.y,
                         180);
                     chart.drawArcCorner(
                         (float) (chart.beginningXCoordinate
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2),
-                        n.next.posLine.y
+                        nextLayout.posLine.y
                             - chart.componentArcSize,
                         90);
                     // the short vertical lines between the quarter Arcs
@@ -1102,30 +1118,30 @@ public class Node {
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posLine.y
+                        l.posLine.y
                             + chart.componentArcSize / 2,
                         p.x
                             + chart.componentGapWidth / 4
                             + chart.componentArcSize / 2,
-                        n.posEnd.y
+                        l.posEnd.y
                             - chart.componentArcSize / 2 + 1);
                     chart.drawLine(
                         chart.beginningXCoordinate
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2,
-                        n.posEnd.y + chart.componentArcSize / 2,
+                        l.posEnd.y + chart.componentArcSize / 2,
                         chart.beginningXCoordinate
                             - chart.componentGapWidth / 4
                             - chart.componentArcSize / 2,
-                        n.next.posLine.y
+                        nextLayout.posLine.y
                             - chart.componentArcSize / 2 + 1);
                     // the long horizontal line in the middle oft the two components
                     chart.drawLine(
                         p.x + chart.componentGapWidth / 4 + 1,
-                        n.posEnd.y,
+                        l.posEnd.y,
                         chart.beginningXCoordinate
                             - chart.componentGapWidth / 4,
-                        n.posEnd.y);
+                        l.posEnd.y);
 
                     p.x = chart.beginningXCoordinate;
                 }
@@ -1137,106 +1153,108 @@ public class Node {
                         Color.RED,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.altSize.getWidth(),
-                        n.altSize.getHeight());
+                        l.posBegin.y,
+                        l.altSize.getWidth(),
+                        l.altSize.getHeight());
                 }
 
                 // the two short lines at the beginning and the end of the alt
                 // component
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x
                         + chart.componentArcSize * 3 / 2,
-                    n.posLine.y);
+                    l.posLine.y);
                 chart.drawLine(
-                    p.x + n.altSize.getWidth(),
-                    n.posLine.y,
+                    p.x + l.altSize.getWidth(),
+                    l.posLine.y,
                     p.x
-                        + n.altSize.getWidth()
+                        + l.altSize.getWidth()
                         - chart.componentArcSize * 3 / 2,
-                    n.posLine.y);
+                    l.posLine.y);
                 Node a = n;
                 boolean first = true;
                 while (a != null) {
-					chart.charColor = a.nodeColor;
-					chart.lineColor = a.lineToColor;
-					chart.charFont = a.nodeFont;
+                    final Layout.NodeLayout la = chart.layout.of(a);
+                    final Layout.NodeLayout altSubLayout = chart.layout.of(a.sub);
+					chart.charColor = chart.getNodeColor(a);
+					chart.lineColor = chart.getLineColor(a);
+					chart.charFont = la.font;
                     // the horizontal lines at the beginning and the end
                     chart.drawLine(
                         p.x
                             + chart.componentArcSize * 3 / 2,
-                        a.sub.posLine.y,
+                        altSubLayout.posLine.y,
                         p.x
-                            + (n.altSize.getWidth() - a.size.getWidth()) / 2,
-                        a.sub.posLine.y);
+                            + (l.altSize.getWidth() - la.size.getWidth()) / 2,
+                        altSubLayout.posLine.y);
                     chart.drawLine(
                         p.x
                             - chart.componentArcSize * 3 / 2
-                            + n.altSize.getWidth()
+                            + l.altSize.getWidth()
                             + 1,
-                        a.sub.posLine.y,
+                        altSubLayout.posLine.y,
                         p.x
-                            + (n.altSize.getWidth() - a.size.getWidth()) / 2
-                            + a.size.getWidth(),
-                        a.sub.posLine.y);
+                            + (l.altSize.getWidth() - la.size.getWidth()) / 2
+                            + la.size.getWidth(),
+                        altSubLayout.posLine.y);
                     // the first alternative draws different arcs
                     if (first) {
                         chart.drawArcCorner(
                             p.x,
-                            n.posLine.y,
+                            l.posLine.y,
                             270);
                         chart.drawArcCorner(
                             p.x
-                                + n.altSize.getWidth()
+                                + l.altSize.getWidth()
                                 - chart.componentArcSize,
-                            n.posLine.y,
+                            l.posLine.y,
                             180);
                         first = false;
                     } else {
                         // else draw other arcs and vertical lines
                         chart.drawArcCorner(
                             p.x + chart.componentArcSize,
-                            a.sub.posLine.y
+                            altSubLayout.posLine.y
                                 - chart.componentArcSize,
                             90);
                         chart.drawLine(
                             p.x + chart.componentArcSize,
-                            n.posLine.y
+                            l.posLine.y
                                 + chart.componentArcSize / 2,
                             p.x
                                 + chart.componentArcSize,
-                            a.posLine.y
+                            la.posLine.y
                                 - chart.componentArcSize / 2 + 1);
                         chart.drawArcCorner(
                             p.x
                                 - chart.componentArcSize * 2
-                                + n.altSize.getWidth(),
-                            a.sub.posLine.y
+                                + l.altSize.getWidth(),
+                            altSubLayout.posLine.y
                                 - chart.componentArcSize,
                             0);
                         chart.drawLine(
                             p.x
                                 - chart.componentArcSize
-                                + n.altSize.getWidth(),
-                            n.posLine.y
+                                + l.altSize.getWidth(),
+                            l.posLine.y
                                 + chart.componentArcSize / 2,
                             p.x
                                 - chart.componentArcSize
-                                + n.altSize.getWidth(),
-                            a.posLine.y
+                                + l.altSize.getWidth(),
+                            la.posLine.y
                                 - chart.componentArcSize / 2 + 1);
                     }
                     a.sub.drawComponents(
                         chart,
                         new Float(
                             p.x
-                                + (n.altSize.getWidth() - a.size.getWidth())
-                                / 2, a.posEnd.y), a.size);
+                                + (l.altSize.getWidth() - la.size.getWidth())
+                                / 2, la.posEnd.y), la.size);
                     a = a.down;
                 }
-                p.x += n.altSize.getWidth();
+                p.x += l.altSize.getWidth();
             }
             break;
             }
@@ -1244,7 +1262,7 @@ public class Node {
             if (n.up) {
                 samelevel = false;
             }
-            if (n.next == null && firstLevel) {
+            if (n.next == null && chart.layout.of(this).firstLevel) {
 				
 				// Set back to default for the very last arrow pointing away (since the error is inside somewhere..)
 				chart.charColor = Chart.defaultCharColor;
@@ -1252,19 +1270,19 @@ public class Node {
 				
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x
                         + chart.componentGapWidth / 4,
-                    n.posLine.y);
+                    l.posLine.y);
                 chart.drawArrow(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.arrowSize,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.arrowSize,
-                    n.posLine.y,
+                    l.posLine.y,
                     Grammar.Direction.RIGHT);
             }
             n = n.next;
@@ -1283,29 +1301,30 @@ public class Node {
         Float p1 = new Float(0, 0);
 
         while (n != null && samelevel) {
-			chart.charColor = n.nodeColor;
-			chart.lineColor = n.lineToColor;
-			chart.charFont = n.nodeFont;
-            p.x -= n.size.getWidth();
+            final Layout.NodeLayout l = chart.layout.of(n);
+			chart.charColor = chart.getNodeColor(n);
+			chart.lineColor = chart.getLineColor(n);
+			chart.charFont = l.font;
+            p.x -= l.size.getWidth();
             if (n.typ == NodeType.TERM || n.typ == NodeType.NONTERM) {
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Chart.N_NT_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y - chart.componentGapHeight / 2,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y - chart.componentGapHeight / 2,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
                 if (n.typ == NodeType.TERM) {
                     // the quarter Arcs
                     final float foo =
-                        (n.size.getHeight() - chart.componentGapHeight) / 2;
+                        (l.size.getHeight() - chart.componentGapHeight) / 2;
                     chart.drawArc(
                         chart.lineStroke,
                         chart.lineColor,
                         p.x,
-                        n.posBegin.y,
+                        l.posBegin.y,
                         foo,
                         foo,
                         180,
@@ -1314,7 +1333,7 @@ public class Node {
                         chart.lineStroke,
                         chart.lineColor,
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         foo,
                         foo,
                         90,
@@ -1322,8 +1341,8 @@ public class Node {
                     chart.drawArc(
                         chart.lineStroke,
                         chart.lineColor,
-                        p.x + n.size.getWidth() - foo,
-                        n.posBegin.y,
+                        p.x + l.size.getWidth() - foo,
+                        l.posBegin.y,
                         foo,
                         foo,
                         270,
@@ -1331,8 +1350,8 @@ public class Node {
                     chart.drawArc(
                         chart.lineStroke,
                         chart.lineColor,
-                        p.x + n.size.getWidth() - foo,
-                        n.posLine.y,
+                        p.x + l.size.getWidth() - foo,
+                        l.posLine.y,
                         foo,
                         foo,
                         0,
@@ -1340,64 +1359,64 @@ public class Node {
                     // the short vertical and horizontal lines between the quarter Arcs
                     chart.drawLine(
                         p.x
-                        + (n.size.getHeight() - chart.componentGapHeight) / 4
-                        - 1, n.posBegin.y, p.x
-                        + n.size.getWidth()
-                        - (n.size.getHeight() - chart.componentGapHeight) / 4
-                        + 1, n.posBegin.y);
+                        + (l.size.getHeight() - chart.componentGapHeight) / 4
+                        - 1, l.posBegin.y, p.x
+                        + l.size.getWidth()
+                        - (l.size.getHeight() - chart.componentGapHeight) / 4
+                        + 1, l.posBegin.y);
                     chart.drawLine(
                         p.x
-                        + (n.size.getHeight() - chart.componentGapHeight) / 4
-                        - 1, n.posEnd.y, p.x
-                        + n.size.getWidth()
-                        - (n.size.getHeight() - chart.componentGapHeight) / 4
-                        + 1, n.posEnd.y);
+                        + (l.size.getHeight() - chart.componentGapHeight) / 4
+                        - 1, l.posEnd.y, p.x
+                        + l.size.getWidth()
+                        - (l.size.getHeight() - chart.componentGapHeight) / 4
+                        + 1, l.posEnd.y);
                     chart.drawLine(
                         p.x,
-                        n.posLine.y
-                            + (n.size.getHeight() - chart.componentGapHeight) / 4
+                        l.posLine.y
+                            + (l.size.getHeight() - chart.componentGapHeight) / 4
                             + 1, p.x,
-                        n.posLine.y
-                            - (n.size.getHeight() - chart.componentGapHeight) / 4
+                        l.posLine.y
+                            - (l.size.getHeight() - chart.componentGapHeight) / 4
                             - 1);
                     chart.drawLine(
-                        p.x + n.size.getWidth(),
-                        n.posLine.y
-                            + (n.size.getHeight() - chart.componentGapHeight)
+                        p.x + l.size.getWidth(),
+                        l.posLine.y
+                            + (l.size.getHeight() - chart.componentGapHeight)
                             / 4 + 1,
-                        p.x + n.size.getWidth(),
-                        n.posLine.y
-                            - (n.size.getHeight() - chart.componentGapHeight)
+                        p.x + l.size.getWidth(),
+                        l.posLine.y
+                            - (l.size.getHeight() - chart.componentGapHeight)
                             / 4 - 1);
                 } else {
-                    n.posBegin.x = p.x;
-                    n.posEnd.x = p.x + n.size.getWidth();
+                    // the layout only holds the vertical positions, the
+                    // component starts at p.x
                     chart.drawRectangle(
                         chart.lineColor,
                         chart.lineStroke,
-                        n.posBegin.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        (n.size.getHeight() - chart.componentGapHeight));
+                        p.x,
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        (l.size.getHeight() - chart.componentGapHeight));
                 }
 //				StringFormat drawFormat  = new StringFormat();
 //				drawFormat.setAlignment(StringAlignment.Center);
 //				drawFormat.setLineAlignment(StringAlignment.Center);
-//				DrawString(n.sym.name , charFont , charColor , new Rectangle((int)p.x,(int)n.posBegin.y,n.size.getWidth(),n.size.getHeight()-componentGapHeight-2),drawFormat);
+//				DrawString(n.sym.name , charFont , charColor , new Rectangle((int)p.x,(int)l.posBegin.y,l.size.getWidth(),l.size.getHeight()-componentGapHeight-2),drawFormat);
                 chart.drawString(
                     n.sym.name,
                     chart.charFont,
                     chart.charColor,
                     p.x
                         + chart.symbolGapWidth,
-                    n.posBegin.y
-                        + (n.size.getHeight() - chart.componentGapHeight)
+                    l.posBegin.y
+                        + (l.size.getHeight() - chart.componentGapHeight)
                         - chart.symbolGapHeight);
                 chart.drawArrow(
-                    p.x + n.size.getWidth(),
-                    n.posLine.y,
-                    p.x + n.size.getWidth(),
-                    n.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y,
                     Grammar.Direction.LEFT);
 
                 if (!n.up
@@ -1407,16 +1426,16 @@ public class Node {
                 {
                     chart.drawArrow(
                         p.x,
-                        n.posLine.y,
+                        l.posLine.y,
                         p.x - chart.componentGapWidth / 2,
-                        n.posLine.y,
+                        l.posLine.y,
                         Grammar.Direction.LEFT);
                     p.x -= chart.componentGapWidth / 2;
                 }
                 if (!n.up
                     && n.next != null
                     && n.next.typ == NodeType.WRAP
-                    && n.next.size.getHeight() == 0)
+                    && chart.layout.of(n.next).size.getHeight() == 0)
                 {
                     if (!n.next.up
                         && n.next.next != null
@@ -1425,10 +1444,10 @@ public class Node {
                     {
                         chart.drawArrow(
                             p.x,
-                            n.posLine.y,
+                            l.posLine.y,
                             p.x
                                 - chart.componentGapWidth / 2,
-                            n.posLine.y,
+                            l.posLine.y,
                             Grammar.Direction.LEFT);
                         p.x -= chart.componentGapWidth / 2;
                     }
@@ -1439,51 +1458,51 @@ public class Node {
                         Chart.EPS_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
-                    p.x + n.size.getWidth(),
-                    n.posLine.y);
+                    l.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y);
             } else if (n.typ == NodeType.OPT) {
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Chart.OPT_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 // the two short lines at the beginning and the end
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x + chart.componentGapWidth,
-                    n.posLine.y);
+                    l.posLine.y);
                 chart.drawLine(
-                    p.x + n.size.getWidth(),
-                    n.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y,
                     p.x
-                        + n.size.getWidth() - chart.componentGapWidth,
-                    n.posLine.y);
+                        + l.size.getWidth() - chart.componentGapWidth,
+                    l.posLine.y);
                 // the quarter Arcs
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         - chart.componentArcSize / 2,
-                    n.posLine.y,
+                    l.posLine.y,
                     270);
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentArcSize
                         - chart.componentGapHeight / 2,
                     90);
@@ -1491,15 +1510,15 @@ public class Node {
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y,
+                        + l.size.getWidth(),
+                    l.posLine.y,
                     180);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posEnd.y
+                        + l.size.getWidth(),
+                    l.posEnd.y
                         - chart.componentArcSize
                         - chart.componentGapHeight / 2,
                     0);
@@ -1508,26 +1527,26 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentArcSize / 2
                         - chart.componentGapHeight / 2 + 1);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y
+                        + l.size.getWidth(),
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posEnd.y
+                        + l.size.getWidth(),
+                    l.posEnd.y
                         - chart.componentArcSize / 2
                         - chart.componentGapHeight / 2 + 1);
                 // the the long horizontal line between the quarter Arcs
@@ -1535,46 +1554,46 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentGapHeight / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize
-                        + n.size.getWidth() + 1,
-                    n.posEnd.y
+                        + l.size.getWidth() + 1,
+                    l.posEnd.y
                         - chart.componentGapHeight / 2);
 
-                p1.x = p.x + n.size.getWidth() - chart.componentGapWidth;
-                n.sub.drawComponentsInverse(chart, p1, n.size);
+                p1.x = p.x + l.size.getWidth() - chart.componentGapWidth;
+                n.sub.drawComponentsInverse(chart, p1, l.size);
             } else if (n.typ == NodeType.RERUN && n.itergraph == null) {
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Chart.RERUN_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 // the two short lines at the beginning and the end
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x + chart.componentGapWidth,
-                    n.posLine.y);
+                    l.posLine.y);
                 chart.drawLine(
-                    p.x + n.size.getWidth(),
-                    n.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y,
                     p.x
-                        + n.size.getWidth() - chart.componentGapWidth,
-                    n.posLine.y);
+                        + l.size.getWidth() - chart.componentGapWidth,
+                    l.posLine.y);
                 // the quarter Arcs
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentGapHeight / 2
                         - chart.componentArcSize,
                     90);
@@ -1582,14 +1601,14 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y,
+                    l.posLine.y,
                     180);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posEnd.y
+                        + l.size.getWidth(),
+                    l.posEnd.y
                         - chart.componentGapHeight / 2
                         - chart.componentArcSize,
                     0);
@@ -1597,34 +1616,34 @@ public class Node {
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posLine.y,
+                        + l.size.getWidth(),
+                    l.posLine.y,
                     270);
                 // the short vertical lines between the quarter Arcs
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentGapHeight / 2
                         - chart.componentArcSize / 2 + 1);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y
+                        + l.size.getWidth(),
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posEnd.y
+                        + l.size.getWidth(),
+                    l.posEnd.y
                         - chart.componentGapHeight / 2
                         - chart.componentArcSize / 2 + 1);
                 // the the long horizontal line between the quarter Arcs
@@ -1632,144 +1651,146 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize - 1,
-                    n.posEnd.y
+                    l.posEnd.y
                         - chart.componentGapHeight / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize
-                        + n.size.getWidth() + 1,
-                    n.posEnd.y
+                        + l.size.getWidth() + 1,
+                    l.posEnd.y
                         - chart.componentGapHeight / 2);
 
-                p1.x = p.x + n.size.getWidth() - chart.componentGapWidth;
-                n.sub.drawComponentsInverse(chart, p1, n.size);
+                p1.x = p.x + l.size.getWidth() - chart.componentGapWidth;
+                n.sub.drawComponentsInverse(chart, p1, l.size);
             } else if (n.typ == NodeType.RERUN && n.itergraph != null) {
+                final Layout.NodeLayout iterLayout = chart.layout.of(n.itergraph);
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Chart.RERUN1_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 // the two short lines at the beginning and the end of the first component
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x
-                        + n.size.getWidth() / 2
-                        - n.altSize.getWidth() / 2 - 1,
-                    n.posLine.y);
+                        + l.size.getWidth() / 2
+                        - l.altSize.getWidth() / 2 - 1,
+                    l.posLine.y);
                 chart.drawLine(
                     p.x
-                        + n.size.getWidth() / 2
-                        + n.altSize.getWidth() / 2 + 1,
-                    n.posLine.y,
+                        + l.size.getWidth() / 2
+                        + l.altSize.getWidth() / 2 + 1,
+                    l.posLine.y,
                     p.x
-                        + n.size.getWidth(),
-                    n.posLine.y);
+                        + l.size.getWidth(),
+                    l.posLine.y);
                 // the quarter Arcs
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.itergraph.posLine.y
+                    iterLayout.posLine.y
                         - chart.componentArcSize,
                     90);
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y,
+                    l.posLine.y,
                     180);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.itergraph.posLine.y
+                        + l.size.getWidth(),
+                    iterLayout.posLine.y
                         - chart.componentArcSize,
                     0);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posLine.y,
+                        + l.size.getWidth(),
+                    l.posLine.y,
                     270);
                 // the short vertical lines between the quarter Arcs
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.itergraph.posLine.y
+                    iterLayout.posLine.y
                         - chart.componentArcSize / 2 + 1);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y
+                        + l.size.getWidth(),
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.itergraph.posLine.y
+                        + l.size.getWidth(),
+                    iterLayout.posLine.y
                         - chart.componentArcSize / 2 + 1);
                 // the two short lines at the beginning and the end of the second component
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize,
-                    n.itergraph.posLine.y,
+                    iterLayout.posLine.y,
                     p.x
-                        + n.size.getWidth() / 2
-                        - n.iterSize.getWidth() / 2
+                        + l.size.getWidth() / 2
+                        - l.iterSize.getWidth() / 2
                         - 1,
-                    n.itergraph.posLine.y);
+                    iterLayout.posLine.y);
                 chart.drawLine(
                     p.x
-                        + n.size.getWidth() / 2
-                        + n.iterSize.getWidth() / 2
+                        + l.size.getWidth() / 2
+                        + l.iterSize.getWidth() / 2
                         + 1,
-                    n.itergraph.posLine.y,
+                    iterLayout.posLine.y,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize
-                        + n.size.getWidth() + 1,
-                    n.itergraph.posLine.y);
+                        + l.size.getWidth() + 1,
+                    iterLayout.posLine.y);
 
                 n.sub.drawComponentsInverse(
                     chart,
                     new Float(
                         p.x
-                            + n.size.getWidth() / 2 + n.altSize.getWidth() / 2,
-                        n.posEnd.y),
-                    n.size);
+                            + l.size.getWidth() / 2 + l.altSize.getWidth() / 2,
+                        l.posEnd.y),
+                    l.size);
                 n.itergraph.drawComponents(
                     chart,
                     new Float(
-                        p.x + n.size.getWidth() / 2
-                            - n.iterSize.getWidth() / 2,
-                        n.posEnd.y),
-                    n.size);
+                        p.x + l.size.getWidth() / 2
+                            - l.iterSize.getWidth() / 2,
+                        l.posEnd.y),
+                    l.size);
             } else if (n.typ == NodeType.ITER) {
+                final Layout.NodeLayout subLayout = chart.layout.of(n.sub);
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Chart.ITER_COLOR,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.size.getWidth(),
-                        n.size.getHeight());
+                        l.posBegin.y,
+                        l.size.getWidth(),
+                        l.size.getHeight());
                 }
 
                 // the quarter Arcs
@@ -1777,187 +1798,189 @@ public class Node {
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.sub.posLine.y
+                    subLayout.posLine.y
                         - chart.componentArcSize,
                     90);
                 chart.drawArcCorner(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y,
+                    l.posLine.y,
                     180);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.sub.posLine.y
+                        + l.size.getWidth(),
+                    subLayout.posLine.y
                         - chart.componentArcSize,
                     0);
                 chart.drawArcCorner(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize * 3 / 2
-                        + n.size.getWidth(),
-                    n.posLine.y,
+                        + l.size.getWidth(),
+                    l.posLine.y,
                     270);
                 // the short vertical lines between the quarter Arcs
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.posLine.y
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize / 2,
-                    n.sub.posLine.y
+                    subLayout.posLine.y
                         - chart.componentArcSize / 2 + 1);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.posLine.y
+                        + l.size.getWidth(),
+                    l.posLine.y
                         + chart.componentArcSize / 2,
                     p.x
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize / 2
-                        + n.size.getWidth(),
-                    n.sub.posLine.y
+                        + l.size.getWidth(),
+                    subLayout.posLine.y
                         - chart.componentArcSize / 2 + 1);
                 // the two short horizontal lines between the quater Arcs and the components
                 chart.drawLine(
                     p.x
                         + chart.componentGapWidth / 4
                         + chart.componentArcSize - 1,
-                    n.sub.posLine.y,
+                    subLayout.posLine.y,
                     p.x
                         + chart.componentGapWidth,
-                    n.sub.posLine.y);
+                    subLayout.posLine.y);
                 chart.drawLine(
                     p.x
                         - chart.componentGapWidth
-                        + n.size.getWidth(),
-                    n.sub.posLine.y,
+                        + l.size.getWidth(),
+                    subLayout.posLine.y,
                     p.x
-                        + n.size.getWidth()
+                        + l.size.getWidth()
                         - chart.componentGapWidth / 4
                         - chart.componentArcSize + 1,
-                    n.sub.posLine.y);
+                    subLayout.posLine.y);
                 // the long horizontal line in the middle
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
-                    p.x + n.size.getWidth(),
-                    n.posLine.y);
+                    l.posLine.y,
+                    p.x + l.size.getWidth(),
+                    l.posLine.y);
 
                 p1.x = p.x + chart.componentGapWidth;
-                n.sub.drawComponents(chart, p1, n.size);
+                n.sub.drawComponents(chart, p1, l.size);
             } else if (n.typ == NodeType.ALT) {
-                p.x -= n.altSize.getWidth() - n.size.getWidth();
+                p.x -= l.altSize.getWidth() - l.size.getWidth();
                 if (chart.showBorders) {
                     chart.drawRectangle(
                         Color.RED,
                         Chart.STROKE1,
                         p.x,
-                        n.posBegin.y,
-                        n.altSize.getWidth(),
-                        n.altSize.getHeight());
+                        l.posBegin.y,
+                        l.altSize.getWidth(),
+                        l.altSize.getHeight());
                 }
 
                 // the two short lines at the beginning and the end of the altcomponent
                 chart.drawLine(
                     p.x,
-                    n.posLine.y,
+                    l.posLine.y,
                     p.x
                         + chart.componentArcSize * 3 / 2,
-                    n.posLine.y);
+                    l.posLine.y);
                 chart.drawLine(
                     p.x
-                        + n.altSize.getWidth(),
-                    n.posLine.y,
+                        + l.altSize.getWidth(),
+                    l.posLine.y,
                     p.x
-                        + n.altSize.getWidth()
+                        + l.altSize.getWidth()
                         - chart.componentArcSize * 3 / 2,
-                    n.posLine.y);
+                    l.posLine.y);
                 p1.x = p.x + 2 * chart.componentGapWidth;
                 p1.y = p1.y + chart.componentGapHeight;
                 Node a = n;
                 boolean first = true;
                 while (a != null) {
-					chart.charColor = a.nodeColor;
-					chart.lineColor = a.lineToColor;
-					chart.charFont = a.nodeFont;
+                    final Layout.NodeLayout la = chart.layout.of(a);
+                    final Layout.NodeLayout altSubLayout = chart.layout.of(a.sub);
+					chart.charColor = chart.getNodeColor(a);
+					chart.lineColor = chart.getLineColor(a);
+					chart.charFont = la.font;
                     // the horizontal lines at the beginning and the end
                     chart.drawLine(
                         p.x + chart.componentArcSize * 3 / 2,
-                        a.sub.posLine.y,
+                        altSubLayout.posLine.y,
                         p.x
-                            + (n.altSize.getWidth() - a.size.getWidth()) / 2,
-                        a.sub.posLine.y);
+                            + (l.altSize.getWidth() - la.size.getWidth()) / 2,
+                        altSubLayout.posLine.y);
                     chart.drawLine(
                         p.x
                             - chart.componentArcSize * 3 / 2
-                            + n.altSize.getWidth()
+                            + l.altSize.getWidth()
                             + 1,
-                        a.sub.posLine.y,
+                        altSubLayout.posLine.y,
                         p.x
-                            + (n.altSize.getWidth() - a.size.getWidth()) / 2
-                            + a.size.getWidth(),
-                        a.sub.posLine.y);
+                            + (l.altSize.getWidth() - la.size.getWidth()) / 2
+                            + la.size.getWidth(),
+                        altSubLayout.posLine.y);
                     // if the first Alternative draw differnt Arcs
                     if (first) {
                         chart.drawArcCorner(
                             p.x,
-                            n.posLine.y,
+                            l.posLine.y,
                             270);
                         chart.drawArcCorner(
                             p.x
-                                + n.altSize.getWidth()
+                                + l.altSize.getWidth()
                                 - chart.componentArcSize,
-                            n.posLine.y,
+                            l.posLine.y,
                             180);
                         first = false;
                     } else {
                         // else draw other Arcs and vertical lines
                         chart.drawArcCorner(
                             p.x + chart.componentArcSize,
-                            a.sub.posLine.y
+                            altSubLayout.posLine.y
                                 - chart.componentArcSize,
                             90);
                         chart.drawLine(
                             p.x + chart.componentArcSize,
-                            n.posLine.y
+                            l.posLine.y
                                 + chart.componentArcSize / 2,
                             p.x
                                 + chart.componentArcSize,
-                            a.posLine.y
+                            la.posLine.y
                                 - chart.componentArcSize / 2 + 1);
                         chart.drawArcCorner(
                             p.x
                                 - chart.componentArcSize * 2
-                                + n.altSize.getWidth(),
-                            a.sub.posLine.y
+                                + l.altSize.getWidth(),
+                            altSubLayout.posLine.y
                             - chart.componentArcSize,
                             0);
                         chart.drawLine(
                             p.x
                                 - chart.componentArcSize
-                                + n.altSize.getWidth(),
-                            n.posLine.y
+                                + l.altSize.getWidth(),
+                            l.posLine.y
                                 + chart.componentArcSize / 2,
                             p.x
                                 - chart.componentArcSize
-                                + n.altSize.getWidth(),
-                            a.posLine.y
+                                + l.altSize.getWidth(),
+                            la.posLine.y
                                 - chart.componentArcSize / 2 + 1);
                     }
                     Float pf = new Float(
                         p.x
-                            + (n.altSize.getWidth() + a.size.getWidth()) / 2,
+                            + (l.altSize.getWidth() + la.size.getWidth()) / 2,
                         p1.y);
-                    a.sub.drawComponentsInverse(chart, pf, a.size);
+                    a.sub.drawComponentsInverse(chart, pf, la.size);
                     a = a.down;
                 }
             }
@@ -0,0 +1,229 @@
+/*
+// Clapham generates railroad diagrams to represent computer language grammars.
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.hydromatic.clapham.graph;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Stroke;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes the primitives of a {@link DisplayList} as SVG elements.
+ *
+ * <p>Elements are written to the underlying writer as soon as they are
+ * replayed, so a diagram never exists as a pixel buffer. Coordinates are the
+ * same as the ones used for a {@link java.awt.Graphics2D}, so a diagram
+ * looks the same as the raster one, but can be scaled freely.
+ *
+ * <p>I/O errors are remembered and reported by {@link #end}, so the
+ * drawing methods don't have to throw them.
+ */
+public class SvgWriter {
+    private final Writer out;
+    private IOException error;
+
+    public SvgWriter(Writer out) {
+        this.out = out;
+    }
+
+    /** Writes the start of the document; must be called before drawing. */
+    public void start(int width, int height) {
+        write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width
+            + "\" height=\"" + height + "\" viewBox=\"0 0 " + width + " "
+            + height + "\">\n");
+    }
+
+    /**
+     * Writes the end of the document and flushes it.
+     *
+     * @throws IOException if anything could not be written
+     */
+    public void end() throws IOException {
+        write("</svg>\n");
+        if (error == null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public void drawLine(
+        Color color, Stroke stroke, int x1, int y1, int x2, int y2)
+    {
+        write("<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2
+            + "\" y2=\"" + y2 + "\"" + stroke(color, stroke) + "/>\n");
+    }
+
+    public void drawRect(
+        Color color, Stroke stroke, int x, int y, int width, int height)
+    {
+        write("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + width
+            + "\" height=\"" + height + "\" fill=\"none\""
+            + stroke(color, stroke) + "/>\n");
+    }
+
+    public void fillRect(Color color, int x, int y, int width, int height) {
+        write("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + width
+            + "\" height=\"" + height + "\" fill=\"" + color(color)
+            + "\"/>\n");
+    }
+
+    public void fillPolygon(Color color, int[] xs, int[] ys, int count) {
+        StringBuilder points = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                points.append(' ');
+            }
+            points.append(xs[i]).append(',').append(ys[i]);
+        }
+        write("<polygon points=\"" + points + "\" fill=\"" + color(color)
+            + "\"/>\n");
+    }
+
+    /**
+     * Draws an arc with the same arguments as
+     * {@link java.awt.Graphics#drawArc}: the bounding box of the ellipse and
+     * the angles in degrees, counter-clockwise from three o'clock.
+     */
+    public void drawArc(
+        Color color,
+        Stroke stroke,
+        int x,
+        int y,
+        int width,
+        int height,
+        int startAngle,
+        int arcAngle)
+    {
+        double rx = width / 2.0;
+        double ry = height / 2.0;
+        double cx = x + rx;
+        double cy = y + ry;
+        double start = Math.toRadians(startAngle);
+        double end = Math.toRadians(startAngle + arcAngle);
+        // positive angles go counter-clockwise on the screen, which is
+        // sweep flag 0 in svg
+        write("<path d=\"M" + number(cx + rx * Math.cos(start)) + ","
+            + number(cy - ry * Math.sin(start))
+            + " A" + number(rx) + "," + number(ry) + " 0 "
+            + (Math.abs(arcAngle) > 180 ? 1 : 0) + ","
+            + (arcAngle > 0 ? 0 : 1) + " "
+            + number(cx + rx * Math.cos(end)) + ","
+            + number(cy - ry * Math.sin(end))
+            + "\" fill=\"none\"" + stroke(color, stroke) + "/>\n");
+    }
+
+    /**
+     * Draws text; like {@link java.awt.Graphics#drawString}, y is the
+     * baseline.
+     */
+    public void drawString(
+        String text, Font font, Color color, float x, float y)
+    {
+        write("<text x=\"" + number(x) + "\" y=\"" + number(y)
+            + "\" font-family=\"" + fontFamily(font) + "\" font-size=\""
+            + number(font.getSize2D()) + "\""
+            + (font.isBold() ? " font-weight=\"bold\"" : "")
+            + (font.isItalic() ? " font-style=\"italic\"" : "")
+            + " fill=\"" + color(color) + "\" xml:space=\"preserve\">"
+            + escape(text) + "</text>\n");
+    }
+
+    private void write(String s) {
+        if (error != null) {
+            return;
+        }
+        try {
+            out.write(s);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    private static String stroke(Color color, Stroke stroke) {
+        float width = stroke instanceof BasicStroke
+            ? ((BasicStroke) stroke).getLineWidth()
+            : 1f;
+        return " stroke=\"" + color(color) + "\" stroke-width=\""
+            + number(width) + "\"";
+    }
+
+    private static String color(Color color) {
+        return "#" + String.format("%06x", color.getRGB() & 0xffffff);
+    }
+
+    /**
+     * Returns the font family with a generic fallback, so the logical java
+     * fonts (Serif, SansSerif, Monospaced) are understood by svg viewers.
+     */
+    private static String fontFamily(Font font) {
+        String family = escape(font.getFamily());
+        String name = font.getName().toLowerCase();
+        if (name.startsWith("monospaced") || name.startsWith("courier")) {
+            return family + ", monospace";
+        } else if (name.startsWith("sansserif") || name.startsWith("dialog")) {
+            return family + ", sans-serif";
+        }
+        return family + ", serif";
+    }
+
+    private static String number(double value) {
+        if (value == Math.rint(value)) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '<':
+                escaped.append("&lt;");
+                break;
+            case '>':
+                escaped.append("&gt;");
+                break;
+            case '&':
+                escaped.append("&amp;");
+                break;
+            case '"':
+                escaped.append("&quot;");
+                break;
+            case '\'':
+                escaped.append("&apos;");
+                break;
+            default:
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
+
+// End SvgWriter.java
@@ -30,7 +30,6 @@ import java.awt.*;
  * @since Sep 1, 2008
  */
 public class TextBox {
-    private final Chart chart;
     private final String text;
     private final Font font;
     private final Color color;
@@ -38,7 +37,6 @@ public class TextBox {
     final int height;
 
     TextBox(Chart chart, String text, Font font, Color color) {
-        this.chart = chart;
         this.text = text;
         this.font = font;
         this.color = color;
@@ -47,7 +45,14 @@ public class TextBox {
 
     }
 
-    void drawAtCenter(float x1, float y1, float width, float height) {
+    /**
+     * Draws the text on a chart; the box only keeps the measured size, so a
+     * layout can be drawn by a different chart than the one it was
+     * calculated with.
+     */
+    void drawAtCenter(
+        Chart chart, float x1, float y1, float width, float height)
+    {
         float x = x1 + width / 2f;
         x -= this.width / 2f;
         float y = y1 + height / 2f;
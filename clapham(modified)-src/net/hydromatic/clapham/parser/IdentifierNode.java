@@ -32,8 +32,19 @@ public class IdentifierNode implements EbnfNode {
     public final String s;
 	public Color lineToColor, nodeColor;
 	public Font nodeFont;
+	// looks up the colors of the node in a ColorOverlay, may be null
+	public String highlightId;
 
     public IdentifierNode(String s, Color lineToColor, Color nodeColor, Font nodeFont) {
+		this(s, null, lineToColor, nodeColor, nodeFont);
+	}
+
+	/**
+	 * Creates a node whose colors can be replaced when it is drawn, see
+	 * {@link net.hydromatic.clapham.graph.ColorOverlay}.
+	 */
+    public IdentifierNode(String s, String highlightId, Color lineToColor, Color nodeColor, Font nodeFont) {
+		this.highlightId = highlightId;
 		this.lineToColor = lineToColor;
 		this.nodeColor = nodeColor;
 		this.nodeFont = nodeFont;
@@ -0,0 +1,235 @@
+package BatchChecker;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Exceptions.GrammarLoadException;
+import Kernel.CheckSession;
+import Kernel.CompileResult;
+import Kernel.CompiledGrammar;
+import Library.StdLibrary;
+
+/**
+ * Checks the syntax of many source files without the gui.
+ * The grammar jar is loaded once and the files are checked in parallel,
+ * every worker thread has its own check session of the same compiled grammar.
+ * The result of each file is written as one JSON line.
+ */
+public class BatchChecker
+{
+	private final CompiledGrammar grammar;
+	private final ExecutorService workers;
+	private final ThreadLocal<CheckSession> sessions;
+	
+	public static void printUsage()
+	{
+		System.out.println("Usage: java -cp SyntaxTrain.jar BatchChecker.BatchChecker GrammarJar [-threads N] [-ext Extension] Files...");
+		System.out.println();
+		System.out.println("GrammarJar:\tThe grammar created by the BnfCompiler, ex. javagrammar.jar");
+		System.out.println("N:\t\tNumber of files checked at the same time, by default the number of processors.");
+		System.out.println("Extension:\tOnly files in the given directories ending with the extension are checked, ex. .java");
+		System.out.println("Files:\t\tSource files or directories containing source files.");
+	}
+	
+	public static void main(String[] args)
+	{
+		if( args.length < 2 )
+		{
+			printUsage();
+			System.exit(0);
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		String extension = "";
+		List<String> paths = new ArrayList<String>();
+		try
+		{
+			for( int i=1;i<args.length;i++ )
+			{
+				if( args[i].equals("-threads") && i + 1 < args.length )
+				{
+					threads = Integer.parseInt(args[++i]);
+				}
+				else if( args[i].equals("-ext") && i + 1 < args.length )
+				{
+					extension = args[++i];
+				}
+				else
+				{
+					paths.add(args[i]);
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			threads = 0;
+		}
+		if( threads < 1 || paths.isEmpty() )
+		{
+			printUsage();
+			System.exit(1);
+		}
+		//the options apply to all files, wherever they are given
+		List<File> files = new ArrayList<File>();
+		for( String path : paths )
+		{
+			addFiles(new File(path), extension, files);
+		}
+		
+		BatchChecker batchChecker = null;
+		try
+		{
+			batchChecker = new BatchChecker(new File(args[0]), threads);
+		}
+		catch (GrammarLoadException e)
+		{
+			System.out.println(e.toString());
+		}
+		if( batchChecker == null )
+		{
+			System.exit(1);
+		}
+		batchChecker.check(files, System.out);
+		batchChecker.shutdown();
+	}
+	
+	/**
+	 * Adds the file, or all files with the given extension when it's a directory.
+	 */
+	private static void addFiles( File file, String extension, List<File> files )
+	{
+		if( !file.isDirectory() )
+		{
+			files.add(file);
+			return;
+		}
+		File[] children = file.listFiles();
+		if( children == null )
+		{
+			return;
+		}
+		Arrays.sort(children);
+		for( File child : children )
+		{
+			if( child.isDirectory() || child.getName().endsWith(extension) )
+			{
+				addFiles(child, extension, files);
+			}
+		}
+	}
+	
+	/**
+	 * Loads the lexer and parser of the grammar jar, the name of the grammar is the name of the jar file.
+	 */
+	public BatchChecker( File grammarJar, int threads ) throws GrammarLoadException
+	{
+		grammar = CompiledGrammar.load(grammarJar);
+		workers = Executors.newFixedThreadPool(threads);
+		sessions = new ThreadLocal<CheckSession>();
+	}
+	
+	/**
+	 * Checks all files and writes their results in the same order as the files are given.
+	 */
+	public void check( List<File> files, PrintStream out )
+	{
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for( final File file : files )
+		{
+			results.add(workers.submit(new Callable<String>()
+			{
+				public String call()
+				{
+					return check(file);
+				}
+			}));
+		}
+		for( int i=0;i<results.size();i++ )
+		{
+			try
+			{
+				out.println(results.get(i).get());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (ExecutionException e)
+			{
+				out.println("{\"file\":\"" + StdLibrary.jsonEscapeString(files.get(i).getPath()) + "\",\"failure\":\"" + StdLibrary.jsonEscapeString(e.getCause().toString()) + "\"}");
+			}
+		}
+	}
+	
+	/**
+	 * Checks a single file on the calling thread.
+	 * @return the result as a JSON object on one line.
+	 */
+	public String check( File file )
+	{
+		StringBuilder json = new StringBuilder();
+		json.append("{\"file\":\"").append(StdLibrary.jsonEscapeString(file.getPath())).append('"');
+		String code = StdLibrary.readFileAsString(file);
+		if( code == null )
+		{
+			return json.append(",\"failure\":\"could not be read\"}").toString();
+		}
+		
+		json.append(',');
+		appendResult(getSession().checkSyntax(code), json);
+		return json.append('}').toString();
+	}
+	
+	/**
+	 * Appends the members describing the result: valid, line, column and trace (the names of the rules in the error trace).
+	 */
+	public static void appendResult( CompileResult result, StringBuilder json )
+	{
+		Stack<Stack<String>> errorTrace = result.getErrorTrace();
+		boolean valid = result.getErrorLine() < 0 && (errorTrace == null || errorTrace.isEmpty());
+		json.append("\"valid\":").append(valid);
+		json.append(",\"line\":").append(result.getErrorLine());
+		json.append(",\"column\":").append(result.getErrorCharPositionInLine());
+		json.append(",\"trace\":[");
+		if( errorTrace != null )
+		{
+			for( int i=0;i<errorTrace.size();i++ )
+			{
+				if( i > 0 )
+				{
+					json.append(',');
+				}
+				json.append('"').append(StdLibrary.jsonEscapeString(errorTrace.get(i).firstElement())).append('"');
+			}
+		}
+		json.append(']');
+	}
+	
+	/**
+	 * @return the check session of the calling worker thread.
+	 */
+	private CheckSession getSession()
+	{
+		CheckSession session = sessions.get();
+		if( session == null )
+		{
+			session = grammar.newSession();
+			sessions.set(session);
+		}
+		return session;
+	}
+	
+	public void shutdown()
+	{
+		workers.shutdown();
+	}
+}
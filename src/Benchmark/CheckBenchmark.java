@@ -0,0 +1,384 @@
+package Benchmark;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+import net.hydromatic.clapham.Clapham;
+import net.hydromatic.clapham.graph.ColorOverlay;
+import net.hydromatic.clapham.graph.Grammar;
+
+import Exceptions.GrammarLoadException;
+import GUI.gGrammarDiagram;
+import Kernel.CheckSession;
+import Kernel.CompileResult;
+import Kernel.CompiledGrammar;
+
+/**
+ * Measures every stage of a compile in the gui with synthetic source code, so regressions in the hot path show up
+ * and optimizations can be proven:
+ *
+ * parse		lexing and parsing with tracing of valid source code (CheckSession.checkSyntax)
+ * check		parsing and highlighting source code with an error at the end (CheckSession.check)
+ * buildGrammar	building the Clapham grammar of all production nodes
+ * layout		laying out and recording the diagram of one rule in a new grammar (gGrammarDiagram.drawNode)
+ * draw			recording the diagram of one rule whose layout is already cached
+ *
+ * Every benchmark runs warmup iterations first and then measured iterations of a fixed time, like JMH does.
+ * For each invocation the time and the bytes allocated by the benchmark thread are measured,
+ * the garbage collections are counted over the measured iterations.
+ */
+public class CheckBenchmark
+{
+	private static final String[] STAGES = {"parse", "check", "buildGrammar", "layout", "draw"};
+	//results are written here, so the jit can't drop the work as unused
+	public static volatile Object sink;
+	private final CompiledGrammar grammar;
+	private final int warmupIterations;
+	private final int iterations;
+	private final long iterationNanos;
+	private final ThreadMXBean threads;
+	private final boolean measureAllocation;
+	
+	public static void printUsage()
+	{
+		System.out.println("Usage: java -cp SyntaxTrain.jar Benchmark.CheckBenchmark GrammarJar [-lines N,N..] [-stages Stage,Stage..] [-warmup N] [-iterations N] [-time Ms] [-incremental]");
+		System.out.println();
+		System.out.println("GrammarJar:\tThe grammar created by the BnfCompiler, ex. javagrammar.jar");
+		System.out.println("-lines:\t\tSizes of the synthetic source code, 10,100,1000,10000,100000 by default.");
+		System.out.println("-stages:\t" + Arrays.toString(STAGES) + ", all by default.");
+		System.out.println("-warmup:\tIterations before measuring, 3 by default.");
+		System.out.println("-iterations:\tMeasured iterations, 5 by default.");
+		System.out.println("-time:\t\tMilliseconds of each iteration, 1000 by default.");
+		System.out.println("-incremental:\tHighlights incrementally like the gui, by default every check highlights all rules.");
+	}
+	
+	public static void main(String[] args)
+	{
+		if( args.length < 1 )
+		{
+			printUsage();
+			System.exit(0);
+		}
+		int[] lines = {10, 100, 1000, 10000, 100000};
+		List<String> stages = Arrays.asList(STAGES);
+		int warmup = 3;
+		int iterations = 5;
+		long time = 1000;
+		boolean incremental = false;
+		for( int i=1;i<args.length;i++ )
+		{
+			if( args[i].equals("-lines") && i + 1 < args.length )
+			{
+				String[] sizes = args[++i].split(",");
+				lines = new int[sizes.length];
+				for( int j=0;j<sizes.length;j++ )
+				{
+					lines[j] = Integer.parseInt(sizes[j].trim());
+				}
+			}
+			else if( args[i].equals("-stages") && i + 1 < args.length )
+			{
+				stages = Arrays.asList(args[++i].split(","));
+			}
+			else if( args[i].equals("-warmup") && i + 1 < args.length )
+			{
+				warmup = Integer.parseInt(args[++i]);
+			}
+			else if( args[i].equals("-iterations") && i + 1 < args.length )
+			{
+				iterations = Integer.parseInt(args[++i]);
+			}
+			else if( args[i].equals("-time") && i + 1 < args.length )
+			{
+				time = Long.parseLong(args[++i]);
+			}
+			else if( args[i].equals("-incremental") )
+			{
+				incremental = true;
+			}
+			else
+			{
+				printUsage();
+				System.exit(1);
+			}
+		}
+		//the diagrams are recorded into images only, no window is opened
+		if( System.getProperty("java.awt.headless") == null )
+		{
+			System.setProperty("java.awt.headless", "true");
+		}
+		
+		CheckBenchmark benchmark = null;
+		try
+		{
+			benchmark = new CheckBenchmark(new File(args[0]), warmup, iterations, time);
+		}
+		catch (GrammarLoadException e)
+		{
+			System.out.println(e.toString());
+		}
+		if( benchmark == null )
+		{
+			System.exit(1);
+		}
+		benchmark.run(stages, lines, incremental);
+	}
+	
+	public CheckBenchmark( File grammarJar, int warmupIterations, int iterations, long iterationMillis ) throws GrammarLoadException
+	{
+		grammar = CompiledGrammar.load(grammarJar);
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		iterationNanos = iterationMillis * 1000000L;
+		threads = ManagementFactory.getThreadMXBean();
+		measureAllocation = threads instanceof com.sun.management.ThreadMXBean &&
+			((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+		if( measureAllocation )
+		{
+			((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+	
+	/**
+	 * Runs the given stages, the ones which depend on the source code once for every size, and prints a table of the results.
+	 */
+	public void run( List<String> stages, int[] lines, boolean incremental )
+	{
+		System.out.println(String.format("%-14s %8s %5s %14s %12s %12s %14s %6s %8s",
+				"Benchmark", "Lines", "Cnt", "ops/s", "error", "us/op", "B/op", "gc", "gc ms"));
+		for( String stage : stages )
+		{
+			if( stage.equals("parse") || stage.equals("check") )
+			{
+				for( int size : lines )
+				{
+					print(stage, Integer.toString(size), measure(createSourceStage(stage, size, incremental)));
+				}
+			}
+			else if( stage.equals("buildGrammar") || stage.equals("layout") || stage.equals("draw") )
+			{
+				print(stage, "-", measure(createDiagramStage(stage)));
+			}
+			else
+			{
+				System.out.println("Unknown stage: " + stage);
+			}
+		}
+	}
+	
+	/**
+	 * One operation of a benchmark, prepare is called before every invocation and isn't measured.
+	 */
+	private static abstract class Stage
+	{
+		void prepare()
+		{
+		}
+		
+		abstract Object invoke();
+	}
+	
+	private Stage createSourceStage( String stage, int lines, boolean incremental )
+	{
+		final CheckSession session = grammar.newSession();
+		session.setIncrementalHighlighting(incremental);
+		if( stage.equals("parse") )
+		{
+			final String code = SyntheticSource.generate(lines, false);
+			return new Stage()
+			{
+				Object invoke()
+				{
+					return session.checkSyntax(code);
+				}
+			};
+		}
+		final String code = SyntheticSource.generate(lines, true);
+		return new Stage()
+		{
+			Object invoke()
+			{
+				return session.check(code);
+			}
+		};
+	}
+	
+	/**
+	 * The diagrams are highlighted like after checking source code with an error at the end.
+	 */
+	private Stage createDiagramStage( String stage )
+	{
+		CompileResult result = grammar.newSession().check(SyntheticSource.generate(100, true));
+		final ColorOverlay highlights = result.getHighlights();
+		final List<String> rules = grammar.getModel().getSortedRuleNames();
+		if( stage.equals("buildGrammar") )
+		{
+			return new Stage()
+			{
+				Object invoke()
+				{
+					return Clapham.buildGrammar(grammar.getModel().getProductionNodes());
+				}
+			};
+		}
+		if( stage.equals("layout") )
+		{
+			//a new grammar is built once all rules are drawn, so every invocation lays out a diagram which isn't cached
+			return new Stage()
+			{
+				private Grammar diagrams;
+				private int rule = rules.size();
+				
+				void prepare()
+				{
+					if( ++rule >= rules.size() )
+					{
+						diagrams = Clapham.buildGrammar(grammar.getModel().getProductionNodes());
+						rule = 0;
+					}
+				}
+				
+				Object invoke()
+				{
+					return gGrammarDiagram.drawNode(rules.get(rule), diagrams, highlights);
+				}
+			};
+		}
+		final Grammar diagrams = Clapham.buildGrammar(grammar.getModel().getProductionNodes());
+		return new Stage()
+		{
+			private int rule = -1;
+			
+			void prepare()
+			{
+				rule = (rule + 1) % rules.size();
+			}
+			
+			Object invoke()
+			{
+				return gGrammarDiagram.drawNode(rules.get(rule), diagrams, highlights);
+			}
+		};
+	}
+	
+	/**
+	 * The measured iterations of one benchmark.
+	 */
+	private static class Result
+	{
+		private final double[] opsPerSecond;
+		private long operations;
+		private long nanos;
+		private long allocatedBytes;
+		private long gcCount;
+		private long gcMillis;
+		
+		private Result( int iterations )
+		{
+			opsPerSecond = new double[iterations];
+		}
+	}
+	
+	private Result measure( Stage stage )
+	{
+		for( int i=0;i<warmupIterations;i++ )
+		{
+			iterate(stage, null);
+		}
+		Result result = new Result(iterations);
+		long gcCount = getGcCount();
+		long gcMillis = getGcMillis();
+		for( int i=0;i<iterations;i++ )
+		{
+			long operations = result.operations;
+			long nanos = result.nanos;
+			iterate(stage, result);
+			result.opsPerSecond[i] = (result.operations - operations) * 1e9 / (result.nanos - nanos);
+		}
+		result.gcCount = getGcCount() - gcCount;
+		result.gcMillis = getGcMillis() - gcMillis;
+		return result;
+	}
+	
+	/**
+	 * Invokes the stage until the iteration time is used up, at least once.
+	 * @param result gets the time and allocation of the invocations, null while warming up
+	 */
+	private void iterate( Stage stage, Result result )
+	{
+		long threadId = Thread.currentThread().getId();
+		long measured = 0;
+		do
+		{
+			stage.prepare();
+			long allocated = getAllocatedBytes(threadId);
+			long start = System.nanoTime();
+			sink = stage.invoke();
+			long nanos = System.nanoTime() - start;
+			if( result != null )
+			{
+				result.allocatedBytes += getAllocatedBytes(threadId) - allocated;
+				result.nanos += nanos;
+				result.operations++;
+			}
+			measured += nanos;
+		}
+		while( measured < iterationNanos );
+	}
+	
+	private long getAllocatedBytes( long threadId )
+	{
+		if( !measureAllocation )
+		{
+			return 0;
+		}
+		return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+	}
+	
+	private static long getGcCount()
+	{
+		long count = 0;
+		for( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() )
+		{
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+	
+	private static long getGcMillis()
+	{
+		long millis = 0;
+		for( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() )
+		{
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+		return millis;
+	}
+	
+	/**
+	 * Prints the mean throughput of the iterations with their standard deviation as error.
+	 */
+	private void print( String stage, String lines, Result result )
+	{
+		double mean = 0;
+		for( double ops : result.opsPerSecond )
+		{
+			mean += ops;
+		}
+		mean /= result.opsPerSecond.length;
+		double variance = 0;
+		for( double ops : result.opsPerSecond )
+		{
+			variance += (ops - mean) * (ops - mean);
+		}
+		double error = result.opsPerSecond.length > 1 ? Math.sqrt(variance / (result.opsPerSecond.length - 1)) : 0;
+		String allocated = measureAllocation ? Long.toString(result.allocatedBytes / result.operations) : "n/a";
+		System.out.println(String.format("%-14s %8s %5d %14.3f %12.3f %12.1f %14s %6d %8d",
+				stage, lines, result.opsPerSecond.length, mean, error, result.nanos / 1000.0 / result.operations,
+				allocated, result.gcCount, result.gcMillis));
+	}
+}
@@ -0,0 +1,69 @@
+package Benchmark;
+
+/**
+ * Generates Java source code with an exact number of lines for the benchmark.
+ * It only uses constructs the bundled javagrammar accepts: fields, methods with if/else, for and while,
+ * so the parser goes through the same rules for every size.
+ */
+public class SyntheticSource
+{
+	private static final int HEADER_LINES = 4;
+	private static final int FOOTER_LINES = 1;
+	private static final String[] METHOD = {
+		"\tpublic int method%d( int a, String b )",
+		"\t{",
+		"\t\tint x = a * 2 + %d;",
+		"\t\tif( x > 10 )",
+		"\t\t{",
+		"\t\t\tx = x - b.length();",
+		"\t\t}",
+		"\t\telse",
+		"\t\t{",
+		"\t\t\tx += 3;",
+		"\t\t}",
+		"\t\tfor( int i = 0; i < x; i++ )",
+		"\t\t{",
+		"\t\t\tcount = count + i;",
+		"\t\t}",
+		"\t\twhile( x > 0 )",
+		"\t\t{",
+		"\t\t\tx--;",
+		"\t\t}",
+		"\t\treturn call(x, \"text\", count);",
+		"\t}",
+	};
+	
+	/**
+	 * @return a compilation unit of the given number of lines, at least 5.
+	 * @param withError leaves out the closing brace of the class, so the error is found at the very end
+	 * and the whole file is in the error trace.
+	 */
+	public static String generate( int lines, boolean withError )
+	{
+		if( lines < HEADER_LINES + FOOTER_LINES )
+		{
+			throw new IllegalArgumentException("At least " + (HEADER_LINES + FOOTER_LINES) + " lines are needed: " + lines);
+		}
+		StringBuilder code = new StringBuilder(lines * 24);
+		code.append("package bench;\n");
+		code.append("\n");
+		code.append("public class Synthetic\n");
+		code.append("{\n");
+		int body = lines - HEADER_LINES - FOOTER_LINES;
+		int methods = body / METHOD.length;
+		//the lines which don't make up a whole method are fields
+		for( int i=0;i<body - methods * METHOD.length;i++ )
+		{
+			code.append("\tprivate int field").append(i).append(" = ").append(i).append(";\n");
+		}
+		for( int i=0;i<methods;i++ )
+		{
+			for( String line : METHOD )
+			{
+				code.append(line.replace("%d", Integer.toString(i))).append('\n');
+			}
+		}
+		code.append(withError ? "\n" : "}\n");
+		return code.toString();
+	}
+}
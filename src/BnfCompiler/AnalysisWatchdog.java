@@ -0,0 +1,262 @@
+package BnfCompiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.antlr.analysis.NFAState;
+import org.antlr.tool.ANTLRErrorListener;
+import org.antlr.tool.ErrorManager;
+import org.antlr.tool.Grammar;
+import org.antlr.tool.Rule;
+
+/**
+ * Runs antlr on a worker thread and aborts it when it runs longer or uses more memory than its budget,
+ * antlr doesn't always finish the analysis of ambiguous or left recursive grammars:
+ *
+ * 		AnalysisWatchdog watchdog = new AnalysisWatchdog(60000, 0);
+ * 		String problem = watchdog.process(antlrTool, listener);
+ *
+ * While antlr runs the progress of the analysis is printed. When it's aborted the problem names the rules
+ * it was analysing and the rules it had found ambiguous so far.
+ * Antlr keeps parts of the analysis in static fields, if it doesn't stop when it's aborted no other grammar
+ * is processed until it's done.
+ */
+public class AnalysisWatchdog
+{
+	public static final long defaultTimeout = 120000;
+	//how often the budget is checked and how often the progress is printed
+	private static final long checkInterval = 100;
+	private static final long progressInterval = 5000;
+	//how long antlr gets to stop after it has been aborted
+	private static final long abortTimeout = 5000;
+	
+	private final long timeout;
+	private final long memoryBudget;
+	private final MemoryMXBean memory;
+	//worker of an antlr which didn't stop when it was aborted
+	private static volatile Thread runaway;
+	
+	/**
+	 * @param timeout milliseconds antlr may run, 0 for no limit
+	 * @param memoryBudget bytes of heap which may be used while antlr runs, 0 for no limit.
+	 * It's the heap of the whole jvm, everything else running at the same time counts as well.
+	 */
+	public AnalysisWatchdog( long timeout, long memoryBudget )
+	{
+		this.timeout = timeout;
+		this.memoryBudget = memoryBudget;
+		memory = ManagementFactory.getMemoryMXBean();
+	}
+	
+	/**
+	 * Runs antlr on a worker thread and waits until it's done or over the budget.
+	 * @param listener gets the errors of antlr, the error listener of antlr is kept for every thread
+	 * @return null if antlr finished, otherwise why it was aborted.
+	 */
+	public String process( final MemoryTool antlrTool, final ANTLRErrorListener listener )
+	{
+		Thread previous = runaway;
+		if( previous != null && previous.isAlive() )
+		{
+			return "Antlr is still analysing an earlier grammar, it didn't stop when it was aborted. " +
+				"No other grammar can be built until it's done, build this grammar again in a new run.";
+		}
+		final Throwable[] failure = new Throwable[1];
+		Thread worker = new Thread("Antlr analysis")
+		{
+			public void run()
+			{
+				ErrorManager.setErrorListener(listener);
+				try
+				{
+					antlrTool.process();
+				}
+				catch (Throwable e)
+				{
+					//ex. an OutOfMemoryError, it's reported by the watchdog
+					failure[0] = e;
+				}
+			}
+		};
+		//an antlr which can't be stopped doesn't keep the jvm running
+		worker.setDaemon(true);
+		long start = System.currentTimeMillis();
+		long nextProgress = start + progressInterval;
+		worker.start();
+		try
+		{
+			while( true )
+			{
+				worker.join(checkInterval);
+				if( !worker.isAlive() )
+				{
+					break;
+				}
+				long now = System.currentTimeMillis();
+				if( timeout > 0 && now - start > timeout )
+				{
+					return abort(antlrTool, worker, "it took longer than " + timeout / 1000 + " s");
+				}
+				if( memoryBudget > 0 && memory.getHeapMemoryUsage().getUsed() > memoryBudget )
+				{
+					return abort(antlrTool, worker, "it used more than " + memoryBudget / (1024 * 1024) + " MB");
+				}
+				if( now >= nextProgress )
+				{
+					System.out.println("Analysing " + describeProgress(antlrTool) + " (" + (now - start) / 1000 + " s)");
+					nextProgress += progressInterval;
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return abort(antlrTool, worker, "the build was interrupted");
+		}
+		if( failure[0] instanceof OutOfMemoryError )
+		{
+			return "Antlr ran out of memory while analysing " + describeProgress(antlrTool) + "." + describeRules(antlrTool);
+		}
+		if( failure[0] != null )
+		{
+			return "Antlr failed while analysing " + describeProgress(antlrTool) + ": " + failure[0];
+		}
+		return null;
+	}
+	
+	private String abort( MemoryTool antlrTool, Thread worker, String reason )
+	{
+		//the decisions which weren't analysed are left without DFA, so the problem is described before
+		String progress = describeProgress(antlrTool);
+		String rules = describeRules(antlrTool);
+		antlrTool.abort();
+		try
+		{
+			worker.join(abortTimeout);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		String problem = "Antlr was aborted because " + reason + ", it was analysing " + progress + "." + rules;
+		if( worker.isAlive() )
+		{
+			runaway = worker;
+			problem += "\nAntlr didn't stop, it's left running in the background and no other grammar can be built until it's done.";
+		}
+		return problem;
+	}
+	
+	/**
+	 * Antlr analyses the decisions in order, the first one without a DFA is the one being analysed.
+	 * @return ex. "decision 40 of 139 of the parser, in rule statement"
+	 */
+	private static String describeProgress( MemoryTool antlrTool )
+	{
+		Grammar grammar = antlrTool.getCurrentGrammar();
+		if( grammar == null )
+		{
+			return "the grammar";
+		}
+		String recognizer = grammar.type == Grammar.LEXER ? "the lexer" : "the parser";
+		int decisions = grammar.getNumberOfDecisions();
+		int decision = findCurrentDecision(grammar);
+		if( decision == 0 )
+		{
+			return recognizer + " (" + decisions + " decisions analysed)";
+		}
+		String rule = getRuleName(grammar, decision);
+		return "decision " + decision + " of " + decisions + " of " + recognizer + (rule == null ? "" : ", in rule " + rule);
+	}
+	
+	/**
+	 * @return the first decision without a DFA, 0 if all have one.
+	 */
+	private static int findCurrentDecision( Grammar grammar )
+	{
+		int decisions = grammar.getNumberOfDecisions();
+		for( int decision=1;decision<=decisions;decision++ )
+		{
+			if( grammar.getLookaheadDFA(decision) == null )
+			{
+				return decision;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return the rules which most likely kept antlr busy, ex. " Check the rules statement, expression for ambiguous alternatives or left recursion."
+	 */
+	private static String describeRules( MemoryTool antlrTool )
+	{
+		Grammar grammar = antlrTool.getCurrentGrammar();
+		if( grammar == null )
+		{
+			return "";
+		}
+		Set<String> rules = new LinkedHashSet<String>();
+		int decision = findCurrentDecision(grammar);
+		if( decision != 0 )
+		{
+			rules.add(getRuleName(grammar, decision));
+		}
+		//antlr may still be changing them if it didn't stop
+		List<Integer> ambiguous = new ArrayList<Integer>();
+		List<Rule> leftRecursive = new ArrayList<Rule>();
+		try
+		{
+			//antlr 3.3 returns raw sets
+			@SuppressWarnings("unchecked")
+			Set<Integer> nondeterministic = grammar.setOfNondeterministicDecisionNumbers;
+			@SuppressWarnings("unchecked")
+			Set<Rule> leftRecursiveRules = grammar.getLeftRecursiveRules();
+			ambiguous.addAll(nondeterministic);
+			if( leftRecursiveRules != null )
+			{
+				leftRecursive.addAll(leftRecursiveRules);
+			}
+		}
+		catch (RuntimeException e)
+		{
+			//ex. a ConcurrentModificationException, only the rule being analysed is named then
+		}
+		for( Integer ambiguousDecision : ambiguous )
+		{
+			rules.add(getRuleName(grammar, ambiguousDecision));
+		}
+		for( Rule rule : leftRecursive )
+		{
+			rules.add(rule.name);
+		}
+		rules.remove(null);
+		if( rules.isEmpty() )
+		{
+			return "";
+		}
+		StringBuilder names = new StringBuilder();
+		for( String rule : rules )
+		{
+			if( names.length() > 0 )
+			{
+				names.append(", ");
+			}
+			names.append(rule);
+		}
+		return " Check the rules " + names + " for ambiguous alternatives or left recursion.";
+	}
+	
+	private static String getRuleName( Grammar grammar, int decision )
+	{
+		NFAState state = grammar.getDecisionNFAStartState(decision);
+		if( state == null || state.enclosingRule == null )
+		{
+			return null;
+		}
+		return state.enclosingRule.name;
+	}
+}
@@ -0,0 +1,244 @@
+package BnfCompiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the bnf files of a folder, several at the same time:
+ *
+ * 		BatchCompiler batchCompiler = new BatchCompiler(threads, cache, timeout, memoryBudget);
+ * 		batchCompiler.build(BatchCompiler.findBnfFiles(folder), System.out);
+ *
+ * Every build runs on a worker thread with its own link ids and keeps its files in memory until its jar is written.
+ * The builds share the java compiler and the build cache, antlr builds one grammar at a time.
+ * The output of every build is collected while it runs and printed in the order of the files,
+ * followed by the time every build took.
+ */
+public class BatchCompiler
+{
+	private final ExecutorService workers;
+	private final int threads;
+	private final BuildCache cache;
+	private final long timeout;
+	private final long memoryBudget;
+	
+	/**
+	 * @param cache null to build without the cache
+	 * @param timeout milliseconds antlr may analyse a grammar, 0 for no limit
+	 * @param memoryBudget bytes of heap which may be used while antlr analyses a grammar, 0 for no limit.
+	 * The other builds use the same heap, so a budget only makes sense with one thread.
+	 */
+	public BatchCompiler( int threads, BuildCache cache, long timeout, long memoryBudget )
+	{
+		workers = Executors.newFixedThreadPool(threads);
+		this.threads = threads;
+		this.cache = cache;
+		this.timeout = timeout;
+		this.memoryBudget = memoryBudget;
+	}
+	
+	/**
+	 * @return the .bnf files in the folder sorted by name, the folders in it are left out.
+	 */
+	public static List<File> findBnfFiles( File folder )
+	{
+		List<File> files = new ArrayList<File>();
+		File[] children = folder.listFiles();
+		if( children == null )
+		{
+			return files;
+		}
+		Arrays.sort(children);
+		for( File child : children )
+		{
+			if( child.isFile() && child.getName().endsWith(".bnf") )
+			{
+				files.add(child);
+			}
+		}
+		return files;
+	}
+	
+	/**
+	 * Builds all files and writes their output in the same order as the files are given, then the summary.
+	 * System.out is replaced while building, so the output of the builds doesn't get mixed.
+	 * @return true if the jar of every file was created.
+	 */
+	public boolean build( List<File> bnfFiles, PrintStream out )
+	{
+		long start = System.nanoTime();
+		PrintStream console = System.out;
+		final BuildOutput output = new BuildOutput(console);
+		System.setOut(new PrintStream(output, true));
+		List<BuildResult> results = new ArrayList<BuildResult>();
+		try
+		{
+			List<Future<BuildResult>> futures = new ArrayList<Future<BuildResult>>();
+			for( final File file : bnfFiles )
+			{
+				futures.add(workers.submit(new Callable<BuildResult>()
+				{
+					public BuildResult call()
+					{
+						return build(file, output);
+					}
+				}));
+			}
+			for( int i=0;i<futures.size();i++ )
+			{
+				BuildResult result;
+				try
+				{
+					result = futures.get(i).get();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return false;
+				}
+				catch (ExecutionException e)
+				{
+					result = new BuildResult(bnfFiles.get(i), false, 0, e.getCause().toString() + "\n");
+				}
+				out.println("== " + result.file.getPath());
+				out.print(result.output);
+				results.add(result);
+			}
+		}
+		finally
+		{
+			System.setOut(console);
+		}
+		return printSummary(results, System.nanoTime() - start, out);
+	}
+	
+	/**
+	 * Builds a single file on the calling thread, its output is collected.
+	 */
+	private BuildResult build( File file, BuildOutput output )
+	{
+		output.begin();
+		long start = System.nanoTime();
+		boolean built = false;
+		try
+		{
+			built = CommandLineTool.build(file.getPath(), cache, timeout, memoryBudget);
+		}
+		catch (RuntimeException e)
+		{
+			System.out.println("Error creating jar file: " + e);
+		}
+		long time = System.nanoTime() - start;
+		return new BuildResult(file, built, time, output.end());
+	}
+	
+	/**
+	 * @return true if every jar was created.
+	 */
+	private boolean printSummary( List<BuildResult> results, long time, PrintStream out )
+	{
+		int built = 0;
+		long buildTime = 0;
+		out.println();
+		out.println(String.format("%-40s %-8s %10s", "Bnf file", "Result", "Time"));
+		for( BuildResult result : results )
+		{
+			out.println(String.format("%-40s %-8s %7d ms", result.file.getName(), result.built ? "built" : "failed", result.time / 1000000));
+			if( result.built )
+			{
+				built++;
+			}
+			buildTime += result.time;
+		}
+		out.println(String.format("%d of %d grammars built in %.1f s with %d threads, the builds took %.1f s together.",
+				built, results.size(), time / 1e9, threads, buildTime / 1e9));
+		return built == results.size();
+	}
+	
+	public void shutdown()
+	{
+		workers.shutdown();
+	}
+	
+	private static class BuildResult
+	{
+		private final File file;
+		private final boolean built;
+		private final long time;
+		private final String output;
+		
+		public BuildResult( File file, boolean built, long time, String output )
+		{
+			this.file = file;
+			this.built = built;
+			this.time = time;
+			this.output = output;
+		}
+	}
+	
+	/**
+	 * Writes into the buffer of the build running on the calling thread, the threads started by the build
+	 * (ex. the antlr worker) write into the same buffer. Other threads write to the console.
+	 */
+	private static class BuildOutput extends OutputStream
+	{
+		private final PrintStream console;
+		private final InheritableThreadLocal<ByteArrayOutputStream> buffers;
+		
+		public BuildOutput( PrintStream console )
+		{
+			this.console = console;
+			buffers = new InheritableThreadLocal<ByteArrayOutputStream>();
+		}
+		
+		/**
+		 * The calling thread starts a build, its output is collected from now on.
+		 */
+		public void begin()
+		{
+			buffers.set(new ByteArrayOutputStream());
+		}
+		
+		/**
+		 * @return the output of the build running on the calling thread.
+		 */
+		public String end()
+		{
+			ByteArrayOutputStream buffer = buffers.get();
+			buffers.remove();
+			return buffer == null ? "" : buffer.toString();
+		}
+		
+		private OutputStream getTarget()
+		{
+			ByteArrayOutputStream buffer = buffers.get();
+			return buffer == null ? console : buffer;
+		}
+		
+		public void write( int b ) throws IOException
+		{
+			getTarget().write(b);
+		}
+		
+		public void write( byte[] b, int off, int len ) throws IOException
+		{
+			getTarget().write(b, off, len);
+		}
+		
+		public void flush() throws IOException
+		{
+			getTarget().flush();
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package BnfCompiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Keeps the results of earlier builds in a folder, every result is stored under the hash of everything it was built from:
+ *
+ * 		String key = cache.getKey("jar", bnf);
+ * 		if( !cache.getFile(key, jarFile) )
+ * 		{
+ * 			...
+ * 			cache.putFile(key, jarFile);
+ * 		}
+ *
+ * The tool version (ex. the antlr and java versions) is part of every key, so a new version never uses old results.
+ * A result is written into a temporary file and moved into place, several builds can share the folder.
+ */
+public class BuildCache
+{
+	private final File folder;
+	private final String toolVersion;
+	
+	public BuildCache( File folder, String toolVersion )
+	{
+		this.folder = folder;
+		this.toolVersion = toolVersion;
+	}
+	
+	public File getFolder()
+	{
+		return folder;
+	}
+	
+	/**
+	 * @return the hash of the tool version and the parts, ex. getKey("jar", bnf)
+	 */
+	public String getKey( String... parts )
+	{
+		try
+		{
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			writePart(data, toolVersion);
+			for( String part : parts )
+			{
+				writePart(data, part);
+			}
+			return hash(data.toByteArray());
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Writes the length before the part so the parts can't run into each other.
+	 */
+	private static void writePart( ByteArrayOutputStream data, String part ) throws UnsupportedEncodingException
+	{
+		byte[] bytes = part.getBytes("UTF-8");
+		data.write(bytes.length >>> 24);
+		data.write(bytes.length >>> 16);
+		data.write(bytes.length >>> 8);
+		data.write(bytes.length);
+		data.write(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * @return the SHA-256 of the data as hex.
+	 */
+	public static String hash( byte[] data )
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+			StringBuilder hex = new StringBuilder();
+			for( byte b : digest )
+			{
+				hex.append(String.format("%02x", b & 0xff));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			//every jvm comes with SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Copies the file stored under the key to the destination.
+	 * @return false if there's no such file.
+	 */
+	public boolean getFile( String key, File destination ) throws IOException
+	{
+		File file = new File(folder, key + ".jar");
+		if( !file.isFile() )
+		{
+			return false;
+		}
+		Files.copy(file.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return true;
+	}
+	
+	public void putFile( String key, File file ) throws IOException
+	{
+		File temp = createTempFile(key);
+		Files.copy(file.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		moveIntoPlace(temp, new File(folder, key + ".jar"));
+	}
+	
+	/**
+	 * @return the entries stored under the key by their name, null if there are none.
+	 */
+	public Map<String, byte[]> getEntries( String key ) throws IOException
+	{
+		File file = new File(folder, key + ".zip");
+		if( !file.isFile() )
+		{
+			return null;
+		}
+		Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+		ZipInputStream zip = new ZipInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			byte[] buffer = new byte[8192];
+			for( ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry() )
+			{
+				ByteArrayOutputStream data = new ByteArrayOutputStream();
+				for( int read = zip.read(buffer); read != -1; read = zip.read(buffer) )
+				{
+					data.write(buffer, 0, read);
+				}
+				entries.put(entry.getName(), data.toByteArray());
+			}
+		}
+		finally
+		{
+			zip.close();
+		}
+		return entries;
+	}
+	
+	public void putEntries( String key, Map<String, byte[]> entries ) throws IOException
+	{
+		File temp = createTempFile(key);
+		ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try
+		{
+			for( Map.Entry<String, byte[]> entry : entries.entrySet() )
+			{
+				zip.putNextEntry(new ZipEntry(entry.getKey()));
+				zip.write(entry.getValue());
+				zip.closeEntry();
+			}
+		}
+		finally
+		{
+			zip.close();
+		}
+		moveIntoPlace(temp, new File(folder, key + ".zip"));
+	}
+	
+	private File createTempFile( String key ) throws IOException
+	{
+		if( !folder.isDirectory() && !folder.mkdirs() && !folder.isDirectory() )
+		{
+			throw new IOException("Could not create the cache folder " + folder.getPath());
+		}
+		return File.createTempFile(key, ".tmp", folder);
+	}
+	
+	/**
+	 * Other builds see the file complete or not at all.
+	 */
+	private static void moveIntoPlace( File temp, File file ) throws IOException
+	{
+		try
+		{
+			try
+			{
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			temp.delete();
+		}
+	}
+}
@@ -1,64 +1,184 @@
 package BnfCompiler;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
-import org.antlr.Tool;
 import org.antlr.runtime.ANTLRInputStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
-import org.antlr.tool.ErrorManager;
-
-import Xml.XmlNode;
 
 import BnfCompiler.Link.RepeatType;
-import Exceptions.XMLLoadException;
-import Exceptions.XMLattributeDoesNotExist;
-import Exceptions.XMLnodeDoesNotExist;
 import Kernel.Variables;
 import Library.StdLibrary;
 
+/**
+ * Creates a grammar jar from a bnf file: the bnf is turned into an antlr grammar, antlr generates the lexer and parser
+ * which are compiled in this jvm with the system java compiler, and the jar is written together with the grammar xml.
+ * Only a JDK is needed, no external programs are started.
+ * All files are kept in memory until the jar is written, nothing else is written to the disk except for the build cache.
+ * The cache keeps the jar of every bnf and the compiled lexer and parser of every antlr grammar, so an unchanged bnf
+ * is not built again. Antlr runs with a time and memory budget, see AnalysisWatchdog.
+ */
 public class CommandLineTool
 {
-	private static String jdkBinFolder = "";
-	private static final String optionsXmlFile = "options.xml";
+	private static final File grammarFolder = new File("Grammar");
+	//shared by all builds, every compile is a task of its own
+	private static final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+	//change it when the generated antlr grammar, the grammar xml or the jar changes, the jars in the cache are built again then
+	private static final String generatorVersion = "2";
 	
 	public static void printUsage()
 	{
-		System.out.println("Usage: java -jar BnfCompiler.jar BnfFile");
+		System.out.println("Usage: java -jar BnfCompiler.jar BnfFile [-cache Folder] [-nocache] [-timeout Seconds] [-memory MB] [-threads N]");
 		System.out.println();
 		System.out.println("BnfFile:\tReference to the file containing the language to be compiled, written in BNF.");
+		System.out.println("\t\tIf it's a folder every .bnf file in it is built, the jars are written next to the bnf files.");
+		System.out.println("-cache:\t\tFolder of the build cache, Cache by default.");
+		System.out.println("-nocache:\tBuilds everything without using the build cache.");
+		System.out.println("-timeout:\tSeconds antlr may analyse the grammar, " + AnalysisWatchdog.defaultTimeout / 1000 + " by default, 0 for no limit.");
+		System.out.println("-memory:\tMB of heap which may be used while antlr analyses the grammar, no limit by default.");
+		System.out.println("\t\tIt's the heap of the whole jvm, so it can't be combined with more than one thread.");
+		System.out.println("-threads:\tNumber of bnf files of a folder built at the same time, by default the number of processors");
+		System.out.println("\t\tor 1 with -memory.");
 	}
 	
 	public static void main(String[] args)
 	{
-		if( args.length != 1 )
+		if( args.length < 1 )
 		{
 			printUsage();
 			System.exit(0);
 		}
-		readOptions();
+		File cacheFolder = new File("Cache");
+		long timeout = AnalysisWatchdog.defaultTimeout;
+		long memoryBudget = 0;
+		//0 until it's given, the default depends on the memory budget
+		int threads = 0;
+		try
+		{
+			for( int i=1;i<args.length;i++ )
+			{
+				if( args[i].equals("-cache") && i + 1 < args.length )
+				{
+					cacheFolder = new File(args[++i]);
+				}
+				else if( args[i].equals("-nocache") )
+				{
+					cacheFolder = null;
+				}
+				else if( args[i].equals("-timeout") && i + 1 < args.length )
+				{
+					timeout = Long.parseLong(args[++i]) * 1000;
+				}
+				else if( args[i].equals("-memory") && i + 1 < args.length )
+				{
+					memoryBudget = Long.parseLong(args[++i]) * 1024 * 1024;
+				}
+				else if( args[i].equals("-threads") && i + 1 < args.length )
+				{
+					threads = Integer.parseInt(args[++i]);
+					if( threads < 1 )
+					{
+						throw new NumberFormatException();
+					}
+				}
+				else
+				{
+					printUsage();
+					System.exit(1);
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			printUsage();
+			System.exit(1);
+		}
+		if( threads == 0 )
+		{
+			threads = memoryBudget > 0 ? 1 : Runtime.getRuntime().availableProcessors();
+		}
 		String filename = args[0];
-		String filenamePre = filename.substring(0, filename.length() - 4);
+		//the budget is checked against the heap of the whole jvm, with parallel builds the other builds would count as well
+		if( memoryBudget > 0 && threads > 1 && new File(filename).isDirectory() )
+		{
+			System.out.println("-memory can't be combined with more than one thread, the heap is shared by all builds.");
+			System.exit(1);
+		}
 		integrityCheck(filename);
-		cleanup(filenamePre);
+		BuildCache cache = cacheFolder == null ? null : createCache(cacheFolder);
+		
+		if( new File(filename).isDirectory() )
+		{
+			BatchCompiler batchCompiler = new BatchCompiler(threads, cache, timeout, memoryBudget);
+			boolean built = batchCompiler.build(BatchCompiler.findBnfFiles(new File(filename)), System.out);
+			batchCompiler.shutdown();
+			System.exit(built ? 0 : 1);
+		}
+		if( !build(filename, cache, timeout, memoryBudget) )
+		{
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Builds the jar of the bnf file, it's written next to the bnf file and named like it.
+	 * Everything but antlr runs on the calling thread and antlr runs one grammar at a time,
+	 * so several bnf files can be built at the same time.
+	 * @return true if the jar was created.
+	 */
+	static boolean build( String filename, BuildCache cache, long timeout, long memoryBudget )
+	{
+		String filenamePre = filename.substring(0, filename.length() - 4);
+		String grammarName = new File(filenamePre).getName();
+		File jarFile = new File(filenamePre + ".jar");
 		
 		String Bnf = StdLibrary.readFileAsString(filename);
 		if( Bnf == null )
 		{
 			System.out.println("There was a problem reading file " + filename + ".");
-			System.exit(0);
+			return false;
 		}
 		
 		try
 		{
+			String jarKey = null;
+			if( cache != null )
+			{
+				jarKey = cache.getKey("jar", generatorVersion, Variables.xmlVersion, grammarName, Bnf);
+				if( getCachedJar(cache, jarKey, jarFile) )
+				{
+					System.out.println("Jar file taken from the cache: " + jarFile.getCanonicalPath());
+					return true;
+				}
+			}
+			
 			System.out.println("Parsing bnf");
 			
 			InputStream is = new ByteArrayInputStream(Bnf.getBytes("UTF-8"));
@@ -66,24 +186,42 @@ public class CommandLineTool
 			BnfEvaluatorLexer lexer = new BnfEvaluatorLexer(input);
 			CommonTokenStream tokens = new CommonTokenStream(lexer);
 			BnfEvaluatorParser parser = new BnfEvaluatorParser(tokens);
+			//every bnf gets the same ids, whatever was built before on this thread
+			Link.resetIds();
 			
 			try
 			{
 				parser.bnf();
+				if( !analyseBnf(parser.startRule, parser.ruleNameToLink) )
+				{
+					System.out.println("Failed to create grammar file!");
+					return false;
+				}
+				//content of the files in the grammar folder of the jar by their name
+				Map<String, String> grammarFiles = new TreeMap<String, String>();
+				Map<String, byte[]> classes = null;
+				String grammar = createAntlrGrammar(grammarName, parser.startRule, parser.ruleNameToLink);
+				if( grammar != null )
+				{
+					grammarFiles.put(grammarName + ".g", grammar);
+					AnalysisWatchdog watchdog = new AnalysisWatchdog(timeout, memoryBudget);
+					classes = createParser(grammarName, grammar, grammarFiles, cache, watchdog);
+				}
 				if( !(
-						createAntlrFiles(filenamePre, parser.startRule, parser.ruleNameToLink) &&
-						compileAntlrFiles("Grammar\\" + filenamePre) &&
-						createSyntaxXml( "Grammar\\" + filenamePre, parser.ruleNameToLink) &&
-						createJarFile( filenamePre, "Grammar\\" )
+						classes != null &&
+						createSyntaxXml( grammarName, parser.ruleNameToLink, grammarFiles ) &&
+						createJarFile( jarFile, grammarFiles, classes )
 					) )
 				{
 					System.out.println("Failed to create grammar file!");
-					return;
+					return false;
+				}
+				if( cache != null )
+				{
+					putCachedJar(cache, jarKey, jarFile);
 				}
-				cleanup(filenamePre);
-				File jarFile = new File(filenamePre + ".jar");
 				System.out.println("Jar file created at: " + jarFile.getCanonicalPath());
-				return;
+				return true;
 			}
 			catch (RecognitionException e)
 			{
@@ -103,108 +241,205 @@ public class CommandLineTool
 		{
 			System.out.println("Unknown Error!");
 		}
-		System.exit(1);
+		return false;
 	}
 	
-	private static void readOptions()
+	/**
+	 * The results depend on the versions of antlr and java and on BnfParser.class, they are part of every key.
+	 * @return null if the cache can't be used.
+	 */
+	private static BuildCache createCache( File folder )
 	{
-		String optionsXml = StdLibrary.readFileAsString(optionsXmlFile);
-		if( optionsXml == null )
+		try
 		{
-			System.out.println("There was a problem reading file " + optionsXmlFile + ".");
-			System.exit(0);
+			byte[] bnfParser = Files.readAllBytes(new File(grammarFolder, "BnfParser.class").toPath());
+			String toolVersion =
+				"antlr " + MemoryTool.getAntlrVersion() +
+				", java " + System.getProperty("java.version") +
+				", BnfParser " + BuildCache.hash(bnfParser);
+			return new BuildCache(folder, toolVersion);
 		}
-		
+		catch (IOException e)
+		{
+			System.out.println("Building without the cache: " + e.getMessage());
+		}
+		return null;
+	}
+	
+	private static boolean getCachedJar( BuildCache cache, String key, File jarFile )
+	{
 		try
 		{
-			XmlNode compilerOptions = new XmlNode(optionsXml, "1.0");
-			jdkBinFolder = compilerOptions.getChildNode("BnfCompiler").getChildNode("path").getAttribute("jdkBinFolder") + "\\";
-			return;
+			return cache.getFile(key, jarFile);
 		}
-		catch (XMLLoadException e)
+		catch (IOException e)
 		{
-			System.out.println( optionsXmlFile + " contains invalid xml.");
+			System.out.println("Could not read the cache: " + e.getMessage());
 		}
-		catch (XMLattributeDoesNotExist e)
+		return false;
+	}
+	
+	private static void putCachedJar( BuildCache cache, String key, File jarFile )
+	{
+		try
 		{
-			System.out.println("Invalid xml structure in " + optionsXmlFile);
+			cache.putFile(key, jarFile);
 		}
-		catch (XMLnodeDoesNotExist e)
+		catch (IOException e)
 		{
-			System.out.println("Invalid xml structure in " + optionsXmlFile);
+			System.out.println("Could not write to the cache: " + e.getMessage());
 		}
-		System.exit(1);
 	}
-
-	private static boolean createJarFile(String filenamePre, String folder)
+	
+	/**
+	 * Lets antlr generate the lexer and parser of the grammar and compiles them, they are taken from the cache
+	 * instead if the same antlr grammar has been built before, ex. when only the comments of the bnf changed.
+	 * The generated files are added to the grammar files.
+	 * @return the class files by their binary name, null if the grammar couldn't be built.
+	 */
+	private static Map<String, byte[]> createParser( String filenamePre, String grammar, Map<String, String> grammarFiles, BuildCache cache, AnalysisWatchdog watchdog )
+	{
+		String key = null;
+		if( cache != null )
+		{
+			key = cache.getKey("parser", grammar);
+			Map<String, byte[]> classes = getCachedParser(cache, key, grammarFiles);
+			if( classes != null )
+			{
+				System.out.println("Lexer and parser taken from the cache");
+				return classes;
+			}
+		}
+		if( !createAntlrFiles(filenamePre, grammar, grammarFiles, watchdog) )
+		{
+			return null;
+		}
+		Map<String, byte[]> classes = compileAntlrFiles(filenamePre, grammarFiles);
+		if( classes != null && cache != null )
+		{
+			putCachedParser(cache, key, filenamePre, grammarFiles, classes);
+		}
+		return classes;
+	}
+	
+	/**
+	 * The generated files are stored as files/name, the classes as classes/binary name.
+	 */
+	private static Map<String, byte[]> getCachedParser( BuildCache cache, String key, Map<String, String> grammarFiles )
 	{
 		try
 		{
-			System.out.println("Creating jar file...");
-			Process jarProcess = Runtime.getRuntime().exec( jdkBinFolder + "jar.exe cf " + filenamePre + ".jar " + folder );
-			Long start = System.currentTimeMillis();
-			while( true )
+			Map<String, byte[]> entries = cache.getEntries(key);
+			if( entries == null )
+			{
+				return null;
+			}
+			Map<String, String> files = new TreeMap<String, String>();
+			Map<String, byte[]> classes = new TreeMap<String, byte[]>();
+			for( Map.Entry<String, byte[]> entry : entries.entrySet() )
 			{
-				Thread.sleep(500);
-				try
+				if( entry.getKey().startsWith("files/") )
 				{
-					int exitCode1 = jarProcess.exitValue();
-					if( exitCode1 != 0 )
-					{
-						System.out.println("Error, jar file not created.");
-						return false;
-					}
-					
-					break;
+					files.put(entry.getKey().substring("files/".length()), new String(entry.getValue(), "UTF-8"));
 				}
-				catch (IllegalThreadStateException e)
+				else if( entry.getKey().startsWith("classes/") )
 				{
-					if( System.currentTimeMillis() - start > 30000 )
-					{
-						//over 30 sec passed
-						System.out.println("Jar file creation took too long.");
-						jarProcess.destroy();
-						return false;
-					}
+					classes.put(entry.getKey().substring("classes/".length()), entry.getValue());
 				}
 			}
-			return true;
+			if( classes.isEmpty() )
+			{
+				return null;
+			}
+			grammarFiles.putAll(files);
+			return classes;
 		}
 		catch (IOException e)
 		{
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			System.out.println("Could not read the cache: " + e.getMessage());
 		}
-		catch (InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+		return null;
+	}
+	
+	private static void putCachedParser( BuildCache cache, String key, String filenamePre, Map<String, String> grammarFiles, Map<String, byte[]> classes )
+	{
+		try
+		{
+			Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+			for( Map.Entry<String, String> file : grammarFiles.entrySet() )
+			{
+				//the antlr grammar is the key
+				if( !file.getKey().equals(filenamePre + ".g") )
+				{
+					entries.put("files/" + file.getKey(), file.getValue().getBytes("UTF-8"));
+				}
+			}
+			for( Map.Entry<String, byte[]> entry : classes.entrySet() )
+			{
+				entries.put("classes/" + entry.getKey(), entry.getValue());
+			}
+			cache.putEntries(key, entries);
+		}
+		catch (IOException e)
+		{
+			System.out.println("Could not write to the cache: " + e.getMessage());
 		}
-		return false;
 	}
-	private static void cleanup( String filenamePre )
+	
+	/**
+	 * Writes the grammar files (the antlr files and the grammar xml), BnfParser.class and the compiled classes into the jar.
+	 */
+	private static boolean createJarFile( File jarFile, Map<String, String> grammarFiles, Map<String, byte[]> classes )
 	{
-		File directory = new File("Grammar\\");
-		File[] files = directory.listFiles();
-		for( File file : files )
-		{
-			String name = file.getName();
-			if( name.equalsIgnoreCase("bnfparser.class") ||
-				name.equalsIgnoreCase(filenamePre + ".jar") ||
-				file.isDirectory() )
+		System.out.println("Creating jar file...");
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		try
+		{
+			JarOutputStream jar = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jarFile)), manifest);
+			try
+			{
+				String directory = grammarFolder.getName() + "/";
+				jar.putNextEntry(new JarEntry(directory));
+				jar.closeEntry();
+				Map<String, byte[]> files = new TreeMap<String, byte[]>();
+				for( Map.Entry<String, String> grammarFile : grammarFiles.entrySet() )
+				{
+					files.put(grammarFile.getKey(), grammarFile.getValue().getBytes("UTF-8"));
+				}
+				files.put("BnfParser.class", Files.readAllBytes(new File(grammarFolder, "BnfParser.class").toPath()));
+				for( Map.Entry<String, byte[]> file : files.entrySet() )
+				{
+					jar.putNextEntry(new JarEntry(directory + file.getKey()));
+					jar.write(file.getValue());
+					jar.closeEntry();
+				}
+				for( Map.Entry<String, byte[]> entry : classes.entrySet() )
+				{
+					jar.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+					jar.write(entry.getValue());
+					jar.closeEntry();
+				}
+			}
+			finally
 			{
-				continue;
+				jar.close();
 			}
-			file.delete();
+			return true;
 		}
+		catch (IOException e)
+		{
+			System.out.println("Error, jar file not created: " + e.getMessage());
+			jarFile.delete();
+		}
+		return false;
 	}
 	private static void integrityCheck(String filename)
 	{
-		//TODO: checks that grammar folder exists (otherwise it creates it), that given jdk bin folder exists and contains javac and jar.
-		//also verifies that antlr.jar and grammar/BnfParser.class exists.
+		//TODO: checks that grammar folder exists (otherwise it creates it).
+		//also verifies that antlr.jar and grammar/BnfParser.class exists and that the jvm comes with a java compiler.
 		File antlr = new File("antlr.jar");
-		File bnfparser = new File("Grammar\\bnfparser.class");
-		File javac = new File(jdkBinFolder + "javac.exe");
-		File jar = new File(jdkBinFolder + "jar.exe");
+		File bnfparser = new File(grammarFolder, "BnfParser.class");
 		File bnfFile = new File(filename);
 		
 		if( !antlr.exists() )
@@ -214,17 +449,12 @@ public class CommandLineTool
 		}
 		if( !bnfparser.exists() )
 		{
-			System.out.println("Missing file Grammar\\bnfparser.class");
-			System.exit(1);
-		}
-		if( !javac.exists() )
-		{
-			System.out.println("Missing or wrongly set up java compilation file: " + jdkBinFolder + "javac.exe");
+			System.out.println("Missing file " + bnfparser.getPath());
 			System.exit(1);
 		}
-		if( !jar.exists() )
+		if( compiler == null )
 		{
-			System.out.println("Missing or wrongly set up jar compilation file: " + jdkBinFolder + "jar.exe");
+			System.out.println("No java compiler found, the BnfCompiler has to be run with a JDK instead of a JRE.");
 			System.exit(1);
 		}
 		if( !bnfFile.exists() )
@@ -233,67 +463,55 @@ public class CommandLineTool
 			System.exit(1);
 		}
 	}
-	private static boolean compileAntlrFiles( String filenamePre )
+	/**
+	 * Compiles the generated lexer and parser in this jvm, the sources and the class files are kept in memory.
+	 * @return the class files by their binary name, null if the code didn't compile.
+	 */
+	private static Map<String, byte[]> compileAntlrFiles( String filenamePre, Map<String, String> grammarFiles )
 	{
+		System.out.println("Compiling...");
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, null);
+		MemoryFileManager fileManager = new MemoryFileManager(standardFileManager);
 		try
 		{
-			System.out.println("Compiling...");
-			Process compilation1 = Runtime.getRuntime().exec( jdkBinFolder + "javac.exe -cp antlr.jar;. " + filenamePre + "Lexer.java" );
-			Process compilation2 = Runtime.getRuntime().exec( jdkBinFolder + "javac.exe -cp antlr.jar;. " + filenamePre + "Parser.java" );
-			Long start = System.currentTimeMillis();
-			while( true )
+			List<JavaFileObject> sources = Arrays.asList(
+					MemoryFileManager.createSource("Grammar." + filenamePre + "Lexer", grammarFiles.get(filenamePre + "Lexer.java")),
+					MemoryFileManager.createSource("Grammar." + filenamePre + "Parser", grammarFiles.get(filenamePre + "Parser.java")));
+			List<String> options = Arrays.asList("-classpath", "antlr.jar" + File.pathSeparator + ".");
+			if( !compiler.getTask(null, fileManager, diagnostics, options, null, sources).call() )
 			{
-				Thread.sleep(500);
-				try
-				{
-					int exitCode1 = compilation1.exitValue();
-					int exitCode2 = compilation2.exitValue();
-					if( exitCode1 != 0 || exitCode2 != 0 )
-					{
-						System.out.println("Failed to compile code.");
-						return false;
-					}
-					
-					break;
-				}
-				catch (IllegalThreadStateException e)
+				System.out.println("Failed to compile code.");
+				for( Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics() )
 				{
-					if( System.currentTimeMillis() - start > 30000 )
+					if( diagnostic.getKind() == Diagnostic.Kind.ERROR )
 					{
-						//over 30 sec passed
-						System.out.println("Compilation error, took too long time to compile.");
-						compilation1.destroy();
-						compilation2.destroy();
-						return false;
+						System.out.println(diagnostic.toString());
 					}
 				}
+				return null;
 			}
-			return true;
+			return fileManager.getClasses();
 		}
-		catch (IOException e)
+		finally
 		{
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		catch (InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			try
+			{
+				fileManager.close();
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
 		}
-		return false;
 	}
-	private static boolean createSyntaxXml( String filenamePre, HashMap<String, Link> ruleNameToLink )
+	private static boolean createSyntaxXml( String filenamePre, HashMap<String, Link> ruleNameToLink, Map<String, String> grammarFiles )
 	{
 		System.out.println("Creating syntax xml file");
-		String filename = filenamePre + ".xml";
-		File file = new File(filename);
-		if(file.exists())
-		{
-			//just to be sure
-			file.delete();
-		}
+		StringWriter xml = new StringWriter();
 		try
 		{
-			BufferedWriter out = new BufferedWriter(new FileWriter(file));
+			BufferedWriter out = new BufferedWriter(xml);
 			out.write("<SyntaxTrain version=\"" + Variables.xmlVersion + "\">\n");
 			for( String ruleName : ruleNameToLink.keySet() )
 			{
@@ -304,6 +522,7 @@ public class CommandLineTool
 			}
 			out.write("</SyntaxTrain>\n");
 			out.close();
+			grammarFiles.put(filenamePre + ".xml", xml.toString());
 			return true;
 		}
 		catch (IOException e)
@@ -398,19 +617,52 @@ public class CommandLineTool
 		}
 	}
 	
-	private static boolean createAntlrFiles( String filenamePre, String startRule, HashMap<String, Link> ruleNameToLink )
+	/**
+	 * Checks the rules of the bnf before antlr is run, antlr takes long to find the same problems and doesn't stop on some.
+	 * @return false if antlr can't build a parser for the bnf.
+	 */
+	private static boolean analyseBnf( String startRule, HashMap<String, Link> ruleNameToLink )
 	{
-		System.out.println("Creating parser and lexer files");
-		String filename = filenamePre + ".g";
-		File file = new File(filename);
-		if(file.exists())
+		System.out.println("Analysing bnf");
+		long start = System.nanoTime();
+		GrammarAnalysis analysis = new GrammarAnalysis(startRule, ruleNameToLink);
+		analysis.analyse();
+		long time = System.nanoTime() - start;
+		for( String warning : analysis.getWarnings() )
+		{
+			System.out.println("Warning: " + warning);
+		}
+		for( String error : analysis.getErrors() )
+		{
+			System.out.println("Error: " + error);
+		}
+		System.out.println(String.format("Bnf analysed in %.1f ms, %d errors and %d warnings",
+				time / 1e6, analysis.getErrors().size(), analysis.getWarnings().size()));
+		return analysis.getErrors().isEmpty();
+	}
+	
+	/**
+	 * @return the antlr grammar of the bnf, null if it couldn't be written.
+	 */
+	private static String createAntlrGrammar( String filenamePre, String startRule, HashMap<String, Link> ruleNameToLink )
+	{
+		System.out.println("Creating antlr grammar");
+		//the generated parser traces numbers instead of names, the names are only looked up after an error
+		ArrayList<String> traceNames = new ArrayList<String>();
+		HashMap<String, Integer> traceIds = new HashMap<String, Integer>();
+		for( String ruleName : ruleNameToLink.keySet() )
+		{
+			traceIds.put(ruleName, traceNames.size());
+			traceNames.add(ruleName);
+		}
+		for( Link rule : ruleNameToLink.values() )
 		{
-			//just to be sure
-			file.delete();
+			addTraceNames(rule, traceNames, traceIds);
 		}
 		try
 		{
-			BufferedWriter out = new BufferedWriter(new FileWriter(file));
+			StringWriter grammar = new StringWriter();
+			BufferedWriter out = new BufferedWriter(grammar);
 			out.write(
 					"grammar " + filenamePre + ";\n" +
 					"\n" +
@@ -422,8 +674,6 @@ public class CommandLineTool
 					"@header\n" +
 					"{\n" +
 					"package Grammar;\n" +
-					"\n" +
-					"import java.util.Stack;\n" +
 					"}\n" +
 					"\n" +
 					"@lexer::header\n" +
@@ -437,6 +687,21 @@ public class CommandLineTool
 					"	{\n" +
 					"		" + startRule + "();\n" +
 					"	}\n" +
+					"\n" +
+					"	private static final String[] TRACE_NAMES =\n" +
+					"	{\n"
+					);
+			for( String traceName : traceNames )
+			{
+				out.write("		\"" + traceName + "\",\n");
+			}
+			out.write(
+					"	};\n" +
+					"\n" +
+					"	protected String[] getTraceNames()\n" +
+					"	{\n" +
+					"		return TRACE_NAMES;\n" +
+					"	}\n" +
 					"}\n" +
 					"@lexer::members {\n" +
 					"    public Token nextToken() {\n" +
@@ -469,7 +734,7 @@ public class CommandLineTool
 					"}\n" +
 					"\n"
 					);
-			writeBnfRule( startRule, ruleNameToLink.get(startRule), out, true );
+			writeBnfRule( startRule, ruleNameToLink.get(startRule), out, true, traceIds );
 			for( String ruleName : ruleNameToLink.keySet() )
 			{
 				if(ruleName.equalsIgnoreCase(startRule))
@@ -477,7 +742,7 @@ public class CommandLineTool
 					//rule is already written
 					continue;
 				}
-				writeBnfRule( ruleName, ruleNameToLink.get(ruleName), out, false );
+				writeBnfRule( ruleName, ruleNameToLink.get(ruleName), out, false, traceIds );
 			}
 			out.write(
 					"INT :	'0'..'9'+\n" +
@@ -536,59 +801,81 @@ public class CommandLineTool
 					"    ;\n"
 			);
 			out.close();
-			ErrorListener listener = new ErrorListener();
-			ErrorManager.setErrorListener(listener);
-			Tool antlrTool = new Tool();
-			antlrTool.addGrammarFile(filename);
-			antlrTool.process();
-			
-			if( listener.numErrorsAndWarnings > 0 )
-			{
-				//Error reporting has been moved to the listener since it is not certain that the antlr tool will stop
-				//in some cases it loops forever and then no error message will be reported :(
-				return false;
-			}
-			//move the files
-			File grammarFile = new File(filename);
-			File tokenFile = new File(filenamePre + ".tokens");
-			File lexerFile = new File(filenamePre + "Lexer.java");
-			File parserFile = new File(filenamePre + "Parser.java");
-			
-			File GrammarDir = new File("Grammar\\");
-			
-			if( !(
-					grammarFile.renameTo(new File(GrammarDir, grammarFile.getName())) &&
-					tokenFile.renameTo(new File(GrammarDir, tokenFile.getName())) &&
-					lexerFile.renameTo(new File(GrammarDir, lexerFile.getName())) &&
-					parserFile.renameTo(new File(GrammarDir, parserFile.getName()))
-			))
+			return grammar.toString();
+		}
+		catch (IOException e)
+		{
+			System.out.println("Could not write the antlr grammar!");
+		}
+		return null;
+	}
+	
+	/**
+	 * Lets antlr generate the lexer and parser of the grammar in memory, antlr is aborted by the watchdog
+	 * when it's over its budget. The tokens and the sources are added to the grammar files.
+	 */
+	private static boolean createAntlrFiles( String filenamePre, String grammar, Map<String, String> grammarFiles, AnalysisWatchdog watchdog )
+	{
+		System.out.println("Creating parser and lexer files");
+		ErrorListener listener = new ErrorListener();
+		MemoryTool antlrTool = new MemoryTool(filenamePre + ".g", grammar);
+		String problem;
+		//antlr keeps its error listeners and parts of the analysis in static fields, it builds one grammar at a time
+		//and the watchdog refuses to start antlr while an aborted one is still running
+		synchronized( MemoryTool.class )
+		{
+			problem = watchdog.process(antlrTool, listener);
+		}
+		if( problem != null )
+		{
+			//antlr doesn't stop on some ambiguous grammars, then it hasn't reported any errors
+			System.out.println(problem);
+			return false;
+		}
+		if( listener.numErrorsAndWarnings > 0 )
+		{
+			return false;
+		}
+		String[] generatedFiles = {filenamePre + ".tokens", filenamePre + "Lexer.java", filenamePre + "Parser.java"};
+		for( String generatedFile : generatedFiles )
+		{
+			String content = antlrTool.getOutput(generatedFile);
+			if( content == null )
 			{
-				System.out.println("Could not rename antlr files!");
+				System.out.println("Antlr didn't generate " + generatedFile + "!");
 				return false;
 			}
-			return true;
+			grammarFiles.put(generatedFile, content);
 		}
-		catch (IOException e)
+		return true;
+	}
+	private static void addTraceNames(Link rule, ArrayList<String> traceNames, HashMap<String, Integer> traceIds)
+	{
+		if( rule.getId() != null )
 		{
-			System.out.println("Could not write to file!!!!");
+			traceIds.put(rule.getUUID(), traceNames.size());
+			traceNames.add(rule.getUUID());
+		}
+		for( Link subRule : rule.getIds() )
+		{
+			addTraceNames(subRule, traceNames, traceIds);
 		}
-		return false;
 	}
-	private static void writeBnfRule(String ruleName, Link rule, BufferedWriter out, boolean isStartRule) throws IOException
+	private static void writeBnfRule(String ruleName, Link rule, BufferedWriter out, boolean isStartRule, HashMap<String, Integer> traceIds) throws IOException
 	{
 		out.write( ruleName + " :\n" );
-		out.write( "\t\t{Stack<String> stack = new Stack<String>(); trace.push(stack); stack.push(\"" + ruleName + "\"); popLast = false;}\n" );
+		out.write( "\t\t{pushTraceRule(" + traceIds.get(ruleName) + "); popLast = false;}\n" );
 		for( Link subRule : rule.getIds() )
 		{
-			writeBnfSubRule( subRule, out );
+			writeBnfSubRule( subRule, out, traceIds );
 		}
 		if( isStartRule )
 		{
 			out.write("EOF");
 		}
-		out.write("\n\t\t{trace.pop();};\n\n");
+		out.write("\n\t\t{popTraceRule();};\n\n");
 	}
-	private static void writeBnfSubRule(Link rule, BufferedWriter out) throws IOException
+	private static void writeBnfSubRule(Link rule, BufferedWriter out, HashMap<String, Integer> traceIds) throws IOException
 	{
 		RepeatType repeating = rule.getRepeat();
 		String id = rule.getId();
@@ -597,7 +884,7 @@ public class CommandLineTool
 		
 		if( id != null )
 		{
-			out.write( "({stack.push(\"" + UUID + "\"); popLast = true;}");
+			out.write( "({pushTraceElement(" + traceIds.get(UUID) + "); popLast = true;}");
 			out.write( " " + id + " {popLast = false;}) " );
 			
 		}
@@ -609,10 +896,10 @@ public class CommandLineTool
 				out.write("(");
 				for( int i=0;i<ids.size()-1;i++)
 				{
-					writeBnfSubRule(ids.get(i), out);
+					writeBnfSubRule(ids.get(i), out, traceIds);
 					out.write("|");
 				}
-				writeBnfSubRule(ids.get(ids.size()-1), out);
+				writeBnfSubRule(ids.get(ids.size()-1), out, traceIds);
 				out.write(")");
 			}
 			else
@@ -634,7 +921,7 @@ public class CommandLineTool
 				}
 				for( Link subRule : ids )
 				{
-					writeBnfSubRule(subRule, out);
+					writeBnfSubRule(subRule, out, traceIds);
 				}
 				switch( repeating )
 				{
@@ -0,0 +1,598 @@
+package BnfCompiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import BnfCompiler.Link.RepeatType;
+
+/**
+ * Analyses the rules of a bnf before antlr is run, it takes milliseconds where the analysis of antlr can take minutes:
+ *
+ * 		GrammarAnalysis analysis = new GrammarAnalysis(parser.startRule, parser.ruleNameToLink);
+ * 		analysis.analyse();
+ *
+ * It computes which rules can be empty (nullable), the tokens every rule can start with (FIRST)
+ * and the tokens which can come after it (FOLLOW).
+ * Left recursion, undefined rules and alternatives which can both be empty are errors, antlr can't build a parser for them.
+ * Alternatives which can start with the same token (FIRST/FIRST) and optional parts which can start with a token
+ * that can also follow them (FIRST/FOLLOW) are warnings, antlr needs more than one token of lookahead there
+ * and that's where its analysis is slow.
+ */
+public class GrammarAnalysis
+{
+	//the token after the start rule
+	public static final String EOF = "EOF";
+	//the tokens defined by the antlr grammar of the CommandLineTool, every other name has to be a rule
+	private static final List<String> definedTokens = Arrays.asList("INT", "FLOAT", "IDENTIFIER", "HEX", "STRING", EOF);
+	//how many tokens and characters of a part are shown in a message
+	private static final int maxTokens = 5;
+	private static final int maxDescription = 40;
+	
+	private final String startRule;
+	private final Map<String, Link> rules;
+	private final Set<String> nullable;
+	private final Map<String, Set<String>> first;
+	private final Map<String, Set<String>> follow;
+	//the tokens which can follow a part of a rule
+	private final Map<Link, Set<String>> partFollow;
+	private final List<String> errors;
+	private final List<String> warnings;
+	
+	public GrammarAnalysis( String startRule, Map<String, Link> rules )
+	{
+		this.startRule = startRule;
+		//sorted so the messages come in the same order every time
+		this.rules = new TreeMap<String, Link>(rules);
+		nullable = new HashSet<String>();
+		first = new HashMap<String, Set<String>>();
+		follow = new HashMap<String, Set<String>>();
+		partFollow = new IdentityHashMap<Link, Set<String>>();
+		errors = new ArrayList<String>();
+		warnings = new ArrayList<String>();
+	}
+	
+	public void analyse()
+	{
+		findUndefinedRules();
+		computeNullable();
+		computeFirst();
+		computeFollow();
+		findLeftRecursion();
+		for( Map.Entry<String, Link> rule : rules.entrySet() )
+		{
+			for( Link part : rule.getValue().getIds() )
+			{
+				findConflicts(rule.getKey(), part);
+			}
+		}
+	}
+	
+	public boolean isNullable( String rule )
+	{
+		return nullable.contains(rule);
+	}
+	
+	public Set<String> getFirst( String rule )
+	{
+		return first.get(rule);
+	}
+	
+	public Set<String> getFollow( String rule )
+	{
+		return follow.get(rule);
+	}
+	
+	/**
+	 * @return the problems antlr can't build a parser for.
+	 */
+	public List<String> getErrors()
+	{
+		return errors;
+	}
+	
+	/**
+	 * @return the places where antlr needs more than one token of lookahead.
+	 */
+	public List<String> getWarnings()
+	{
+		return warnings;
+	}
+	
+	private boolean isRule( String id )
+	{
+		return rules.containsKey(id);
+	}
+	
+	private void findUndefinedRules()
+	{
+		if( !isRule(startRule) )
+		{
+			errors.add("The start rule " + startRule + " isn't defined.");
+		}
+		for( Map.Entry<String, Link> rule : rules.entrySet() )
+		{
+			Set<String> undefined = new TreeSet<String>();
+			findUndefinedRules(rule.getValue(), undefined);
+			for( String name : undefined )
+			{
+				errors.add("Rule " + rule.getKey() + ": " + name + " isn't defined.");
+			}
+		}
+	}
+	
+	private void findUndefinedRules( Link link, Set<String> undefined )
+	{
+		String id = link.getId();
+		if( id != null )
+		{
+			//terminals are quoted
+			if( !id.startsWith("'") && !isRule(id) && !definedTokens.contains(id) )
+			{
+				undefined.add(id);
+			}
+			return;
+		}
+		for( Link part : link.getIds() )
+		{
+			findUndefinedRules(part, undefined);
+		}
+	}
+	
+	private void computeNullable()
+	{
+		boolean changed = true;
+		while( changed )
+		{
+			changed = false;
+			for( Map.Entry<String, Link> rule : rules.entrySet() )
+			{
+				if( !nullable.contains(rule.getKey()) && isNullable(rule.getValue().getIds()) )
+				{
+					nullable.add(rule.getKey());
+					changed = true;
+				}
+			}
+		}
+	}
+	
+	private boolean isNullable( Link link )
+	{
+		if( link.getId() != null )
+		{
+			return nullable.contains(link.getId());
+		}
+		switch( link.getRepeat() )
+		{
+		case optional:
+		case loop:
+			return true;
+		case oneOfMultiple:
+			for( Link alternative : link.getIds() )
+			{
+				if( isNullable(alternative) )
+				{
+					return true;
+				}
+			}
+			return false;
+		default:
+			return isNullable(link.getIds());
+		}
+	}
+	
+	private boolean isNullable( List<Link> sequence )
+	{
+		for( Link link : sequence )
+		{
+			if( !isNullable(link) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void computeFirst()
+	{
+		for( String rule : rules.keySet() )
+		{
+			first.put(rule, new TreeSet<String>());
+		}
+		boolean changed = true;
+		while( changed )
+		{
+			changed = false;
+			for( Map.Entry<String, Link> rule : rules.entrySet() )
+			{
+				Set<String> ruleFirst = first.get(rule.getKey());
+				int size = ruleFirst.size();
+				addFirst(rule.getValue().getIds(), ruleFirst);
+				changed |= ruleFirst.size() != size;
+			}
+		}
+	}
+	
+	private void addFirst( Link link, Set<String> tokens )
+	{
+		String id = link.getId();
+		if( id != null )
+		{
+			if( isRule(id) )
+			{
+				tokens.addAll(first.get(id));
+			}
+			else
+			{
+				tokens.add(id);
+			}
+			return;
+		}
+		if( link.getRepeat() == RepeatType.oneOfMultiple )
+		{
+			for( Link alternative : link.getIds() )
+			{
+				addFirst(alternative, tokens);
+			}
+			return;
+		}
+		addFirst(link.getIds(), tokens);
+	}
+	
+	private void addFirst( List<Link> sequence, Set<String> tokens )
+	{
+		for( Link link : sequence )
+		{
+			addFirst(link, tokens);
+			if( !isNullable(link) )
+			{
+				return;
+			}
+		}
+	}
+	
+	private Set<String> getFirst( Link link )
+	{
+		Set<String> tokens = new TreeSet<String>();
+		addFirst(link, tokens);
+		return tokens;
+	}
+	
+	private void computeFollow()
+	{
+		for( String rule : rules.keySet() )
+		{
+			follow.put(rule, new TreeSet<String>());
+		}
+		if( isRule(startRule) )
+		{
+			follow.get(startRule).add(EOF);
+		}
+		boolean changed = true;
+		while( changed )
+		{
+			changed = false;
+			for( Map.Entry<String, Link> rule : rules.entrySet() )
+			{
+				changed |= addFollow(rule.getValue().getIds(), follow.get(rule.getKey()));
+			}
+		}
+	}
+	
+	/**
+	 * Adds the tokens which can follow the parts of the sequence to the parts and the rules in it.
+	 * @param tokens the tokens which can follow the sequence
+	 * @return true if the FOLLOW set of a rule changed.
+	 */
+	private boolean addFollow( List<Link> sequence, Set<String> tokens )
+	{
+		boolean changed = false;
+		Set<String> next = tokens;
+		for( int i=sequence.size()-1;i>=0;i-- )
+		{
+			Link link = sequence.get(i);
+			changed |= addFollow(link, next);
+			Set<String> before = getFirst(link);
+			if( isNullable(link) )
+			{
+				before.addAll(next);
+			}
+			next = before;
+		}
+		return changed;
+	}
+	
+	private boolean addFollow( Link link, Set<String> tokens )
+	{
+		Set<String> linkFollow = partFollow.get(link);
+		if( linkFollow == null )
+		{
+			linkFollow = new TreeSet<String>();
+			partFollow.put(link, linkFollow);
+		}
+		linkFollow.addAll(tokens);
+		String id = link.getId();
+		if( id != null )
+		{
+			return isRule(id) && follow.get(id).addAll(tokens);
+		}
+		switch( link.getRepeat() )
+		{
+		case oneOfMultiple:
+			boolean changed = false;
+			for( Link alternative : link.getIds() )
+			{
+				changed |= addFollow(alternative, tokens);
+			}
+			return changed;
+		case loop:
+		case atleastOnce:
+			//the repeated part can be followed by itself
+			Set<String> repeated = new TreeSet<String>(tokens);
+			addFirst(link.getIds(), repeated);
+			return addFollow(link.getIds(), repeated);
+		default:
+			return addFollow(link.getIds(), tokens);
+		}
+	}
+	
+	/**
+	 * A rule is left recursive if it can start with itself, antlr can't parse it.
+	 */
+	private void findLeftRecursion()
+	{
+		Map<String, Set<String>> leftRules = new HashMap<String, Set<String>>();
+		for( Map.Entry<String, Link> rule : rules.entrySet() )
+		{
+			Set<String> names = new TreeSet<String>();
+			addLeftRules(rule.getValue().getIds(), names);
+			leftRules.put(rule.getKey(), names);
+		}
+		//every cycle is reported once
+		Set<String> reported = new HashSet<String>();
+		for( String rule : rules.keySet() )
+		{
+			if( reported.contains(rule) )
+			{
+				continue;
+			}
+			List<String> cycle = findCycle(rule, leftRules);
+			if( cycle != null )
+			{
+				reported.addAll(cycle);
+				StringBuilder path = new StringBuilder();
+				for( String name : cycle )
+				{
+					if( path.length() > 0 )
+					{
+						path.append(" -> ");
+					}
+					path.append(name);
+				}
+				errors.add("Left recursion: " + path + ", the rule can start with itself.");
+			}
+		}
+	}
+	
+	/**
+	 * Adds the rules the sequence can start with.
+	 */
+	private void addLeftRules( List<Link> sequence, Set<String> names )
+	{
+		for( Link link : sequence )
+		{
+			addLeftRules(link, names);
+			if( !isNullable(link) )
+			{
+				return;
+			}
+		}
+	}
+	
+	private void addLeftRules( Link link, Set<String> names )
+	{
+		String id = link.getId();
+		if( id != null )
+		{
+			if( isRule(id) )
+			{
+				names.add(id);
+			}
+			return;
+		}
+		if( link.getRepeat() == RepeatType.oneOfMultiple )
+		{
+			for( Link alternative : link.getIds() )
+			{
+				addLeftRules(alternative, names);
+			}
+			return;
+		}
+		addLeftRules(link.getIds(), names);
+	}
+	
+	/**
+	 * @return the shortest path from the rule back to itself, ex. [expression, term, expression], null if there's none.
+	 */
+	private static List<String> findCycle( String rule, Map<String, Set<String>> leftRules )
+	{
+		Map<String, String> previous = new HashMap<String, String>();
+		LinkedList<String> queue = new LinkedList<String>();
+		queue.add(rule);
+		while( !queue.isEmpty() )
+		{
+			String current = queue.removeFirst();
+			for( String next : leftRules.get(current) )
+			{
+				if( next.equals(rule) )
+				{
+					LinkedList<String> cycle = new LinkedList<String>();
+					cycle.add(rule);
+					for( String name = current; !name.equals(rule); name = previous.get(name) )
+					{
+						cycle.addFirst(name);
+					}
+					cycle.addFirst(rule);
+					return cycle;
+				}
+				if( !previous.containsKey(next) )
+				{
+					previous.put(next, current);
+					queue.add(next);
+				}
+			}
+		}
+		return null;
+	}
+	
+	private void findConflicts( String rule, Link link )
+	{
+		if( link.getId() != null )
+		{
+			return;
+		}
+		List<Link> parts = link.getIds();
+		switch( link.getRepeat() )
+		{
+		case oneOfMultiple:
+			for( int i=0;i<parts.size();i++ )
+			{
+				for( int j=i+1;j<parts.size();j++ )
+				{
+					String alternatives = "the alternatives " + describe(parts.get(i)) + " and " + describe(parts.get(j));
+					if( isNullable(parts.get(i)) && isNullable(parts.get(j)) )
+					{
+						errors.add("Rule " + rule + ": " + alternatives + " can both be empty.");
+						continue;
+					}
+					Set<String> common = getFirst(parts.get(i));
+					common.retainAll(getFirst(parts.get(j)));
+					if( !common.isEmpty() )
+					{
+						warnings.add("Rule " + rule + ": " + alternatives + " can both start with " + describe(common) + ".");
+					}
+				}
+			}
+			break;
+		case optional:
+		case loop:
+		case atleastOnce:
+			Set<String> common = new TreeSet<String>();
+			addFirst(parts, common);
+			Set<String> linkFollow = partFollow.get(link);
+			if( linkFollow != null )
+			{
+				common.retainAll(linkFollow);
+			}
+			if( !common.isEmpty() )
+			{
+				String part = link.getRepeat() == RepeatType.optional ? "the optional part " : "the repeated part ";
+				warnings.add("Rule " + rule + ": " + part + describe(link) + " and what follows it can both start with " + describe(common) + ".");
+			}
+			break;
+		default:
+			break;
+		}
+		for( Link part : parts )
+		{
+			findConflicts(rule, part);
+		}
+	}
+	
+	/**
+	 * @return the part as in the bnf, ex. [ "extends" class_name ]
+	 */
+	private static String describe( Link link )
+	{
+		StringBuilder description = new StringBuilder();
+		describe(link, description);
+		if( description.length() > maxDescription )
+		{
+			description.setLength(maxDescription);
+			description.append("...");
+		}
+		return description.toString();
+	}
+	
+	private static void describe( Link link, StringBuilder description )
+	{
+		if( link.getId() != null )
+		{
+			description.append(link.getId().replace('\'', '"'));
+			return;
+		}
+		String separator = link.getRepeat() == RepeatType.oneOfMultiple ? " / " : " ";
+		switch( link.getRepeat() )
+		{
+		case optional:
+			description.append("[ ");
+			break;
+		case loop:
+			description.append("< ");
+			break;
+		case oneOfMultiple:
+		case atleastOnce:
+			description.append("( ");
+			break;
+		default:
+			break;
+		}
+		for( int i=0;i<link.getIds().size();i++ )
+		{
+			if( i > 0 )
+			{
+				description.append(separator);
+			}
+			describe(link.getIds().get(i), description);
+		}
+		switch( link.getRepeat() )
+		{
+		case optional:
+			description.append(" ]");
+			break;
+		case loop:
+			description.append(" >");
+			break;
+		case oneOfMultiple:
+			description.append(" )");
+			break;
+		case atleastOnce:
+			description.append(" )+");
+			break;
+		default:
+			break;
+		}
+	}
+	
+	/**
+	 * @return ex. "public", "static" and 3 more
+	 */
+	private static String describe( Set<String> tokens )
+	{
+		StringBuilder description = new StringBuilder();
+		int count = 0;
+		for( String token : tokens )
+		{
+			if( count == maxTokens )
+			{
+				description.append(" and ").append(tokens.size() - maxTokens).append(" more");
+				break;
+			}
+			if( count > 0 )
+			{
+				description.append(", ");
+			}
+			description.append(token.replace('\'', '"'));
+			count++;
+		}
+		return description.toString();
+	}
+}
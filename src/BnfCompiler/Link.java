@@ -9,7 +9,14 @@ public class Link
 	private Stack<Link> ids;
 	private RepeatType repeating;
 	private String UUID;
-	private static int currentID = 0;
+	//every thread counts the ids of its links, several bnf files can be parsed at the same time
+	private static final ThreadLocal<int[]> currentID = new ThreadLocal<int[]>()
+	{
+		protected int[] initialValue()
+		{
+			return new int[1];
+		}
+	};
 	
 	public Link()
 	{
@@ -39,12 +46,20 @@ public class Link
 		id = identifier;
 		if( id != null )
 		{
-			UUID = "id" + Integer.toString(currentID++);
+			UUID = "id" + Integer.toString(currentID.get()[0]++);
 		}
 		//by default all Links are sequences
 		repeating = RepeatType.sequence;
 	}
 	
+	/**
+	 * The next link created by this thread gets the id 0, it's called before a bnf is parsed.
+	 */
+	public static void resetIds()
+	{
+		currentID.get()[0] = 0;
+	}
+	
 	public String getUUID()
 	{
 		return UUID;
@@ -0,0 +1,97 @@
+package BnfCompiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.JavaFileObject.Kind;
+
+/**
+ * Keeps the class files written by the java compiler in memory instead of writing them next to the sources,
+ * everything else (the class path) is read through the standard file manager.
+ * The sources can be given as strings, see createSource.
+ */
+public class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager>
+{
+	//class file of every compiled class by its binary name, ex. Grammar.javagrammarLexer$DFA8
+	private final Map<String, ClassFile> classFiles;
+	
+	public MemoryFileManager( StandardJavaFileManager fileManager )
+	{
+		super(fileManager);
+		classFiles = new TreeMap<String, ClassFile>();
+	}
+	
+	public JavaFileObject getJavaFileForOutput( Location location, String className, Kind kind, FileObject sibling ) throws IOException
+	{
+		if( kind != Kind.CLASS )
+		{
+			return super.getJavaFileForOutput(location, className, kind, sibling);
+		}
+		ClassFile classFile = new ClassFile(className);
+		classFiles.put(className, classFile);
+		return classFile;
+	}
+	
+	/**
+	 * @return the bytes of every compiled class by its binary name, sorted by name.
+	 */
+	public Map<String, byte[]> getClasses()
+	{
+		Map<String, byte[]> classes = new TreeMap<String, byte[]>();
+		for( Map.Entry<String, ClassFile> entry : classFiles.entrySet() )
+		{
+			classes.put(entry.getKey(), entry.getValue().bytes.toByteArray());
+		}
+		return classes;
+	}
+	
+	/**
+	 * @return a source file with the given code, ex. createSource("Grammar.javagrammarLexer", code)
+	 */
+	public static JavaFileObject createSource( String className, String code )
+	{
+		return new SourceFile(className, code);
+	}
+	
+	private static class SourceFile extends SimpleJavaFileObject
+	{
+		private final String code;
+		
+		public SourceFile( String className, String code )
+		{
+			super(URI.create("mem:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.code = code;
+		}
+		
+		public CharSequence getCharContent( boolean ignoreEncodingErrors )
+		{
+			return code;
+		}
+	}
+	
+	private static class ClassFile extends SimpleJavaFileObject
+	{
+		private final ByteArrayOutputStream bytes;
+		
+		public ClassFile( String className )
+		{
+			super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+			bytes = new ByteArrayOutputStream();
+		}
+		
+		public OutputStream openOutputStream()
+		{
+			bytes.reset();
+			return bytes;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package BnfCompiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.antlr.Tool;
+import org.antlr.tool.CompositeGrammar;
+import org.antlr.tool.Grammar;
+
+/**
+ * Runs antlr on a grammar given as text, the generated files (the lexer and parser sources, the tokens)
+ * are kept as strings instead of being written into the working directory.
+ * Nothing is read from or written to the disk, so several grammars can be generated at the same time.
+ * The analysis can be aborted from another thread, see AnalysisWatchdog.
+ */
+public class MemoryTool extends Tool
+{
+	private final String grammarText;
+	//content of every generated file by its file name, ex. javagrammarParser.java
+	private final Map<String, StringWriter> outputs;
+	//the grammar antlr is working on, first the combined grammar and then the lexer grammar
+	private volatile Grammar currentGrammar = null;
+	private volatile boolean aborted = false;
+	
+	/**
+	 * @param grammarFileName name of the grammar file, ex. javagrammar.g, it has to match the grammar name.
+	 */
+	public MemoryTool( String grammarFileName, String grammarText )
+	{
+		super();
+		loadVersion();
+		this.grammarText = grammarText;
+		outputs = new TreeMap<String, StringWriter>();
+		//the lexer grammar of a combined grammar is only kept in memory, there's no file to delete
+		deleteTempLexer = false;
+		addGrammarFile(grammarFileName);
+	}
+	
+	/**
+	 * Antlr loads its version from a resource next to the class of the tool, which is this class,
+	 * so it's loaded again from next to the antlr tool. The version is written into the generated files.
+	 */
+	private void loadVersion()
+	{
+		String version = getAntlrVersion();
+		if( version != null )
+		{
+			VERSION = version;
+		}
+	}
+	
+	/**
+	 * @return the version of antlr on the class path, ex. "3.3 Nov 30, 2010 12:50:56", null if it's unknown.
+	 */
+	public static String getAntlrVersion()
+	{
+		InputStream stream = Tool.class.getResourceAsStream("antlr.properties");
+		if( stream == null )
+		{
+			return null;
+		}
+		try
+		{
+			Properties properties = new Properties();
+			properties.load(stream);
+			stream.close();
+			return properties.getProperty("antlr.version");
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * There's only one grammar, it doesn't depend on others which have to be generated first.
+	 * Antlr would read the grammar file to find the dependencies.
+	 */
+	public void sortGrammarFiles()
+	{
+	}
+	
+	/**
+	 * Parses the grammar text instead of reading the grammar file.
+	 */
+	public Grammar getRootGrammar( String grammarFileName ) throws IOException
+	{
+		CompositeGrammar composite = new CompositeGrammar();
+		Grammar grammar = new Grammar(this, grammarFileName, composite);
+		composite.setDelegationRoot(grammar);
+		grammar.parseAndBuildAST(new StringReader(grammarText));
+		composite.watchNFAConversion = internalOption_watchNFAConversion;
+		currentGrammar = grammar;
+		return grammar;
+	}
+	
+	protected void generateRecognizer( Grammar grammar )
+	{
+		if( aborted )
+		{
+			return;
+		}
+		currentGrammar = grammar;
+		if( aborted )
+		{
+			//aborted while switching to this grammar
+			grammar.externallyAbortNFAToDFAConversion();
+		}
+		super.generateRecognizer(grammar);
+	}
+	
+	/**
+	 * @return the grammar antlr is working on, null if it hasn't started.
+	 */
+	public Grammar getCurrentGrammar()
+	{
+		return currentGrammar;
+	}
+	
+	/**
+	 * Stops the analysis of the current grammar, the grammars after it are skipped.
+	 * Antlr checks for it between the states of the lookahead DFAs, it stops soon but not at once.
+	 */
+	public void abort()
+	{
+		aborted = true;
+		Grammar grammar = currentGrammar;
+		if( grammar != null )
+		{
+			grammar.externallyAbortNFAToDFAConversion();
+		}
+	}
+	
+	public boolean isAborted()
+	{
+		return aborted;
+	}
+	
+	public Writer getOutputFile( Grammar grammar, String fileName )
+	{
+		StringWriter output = new StringWriter();
+		outputs.put(fileName, output);
+		return output;
+	}
+	
+	/**
+	 * @return the content of the given generated file, null if antlr didn't generate it.
+	 */
+	public String getOutput( String fileName )
+	{
+		StringWriter output = outputs.get(fileName);
+		return output == null ? null : output.toString();
+	}
+	
+	/**
+	 * @return the content of every generated file by its file name.
+	 */
+	public Map<String, String> getOutputs()
+	{
+		Map<String, String> files = new TreeMap<String, String>();
+		for( Map.Entry<String, StringWriter> output : outputs.entrySet() )
+		{
+			files.put(output.getKey(), output.getValue().toString());
+		}
+		return files;
+	}
+}
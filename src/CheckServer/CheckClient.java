@@ -0,0 +1,231 @@
+package CheckServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Library.StdLibrary;
+
+/**
+ * Client of the CheckServer, sends source files to a server on localhost and prints the answers.
+ * With -repeat every file is sent several times from several threads, which is handy to measure the throughput of a server.
+ */
+public class CheckClient
+{
+	private final String baseUrl;
+	private final String grammarName;
+	
+	public static void printUsage()
+	{
+		System.out.println("Usage: java -cp SyntaxTrain.jar CheckServer.CheckClient [-port N] [-grammar Name] [-repeat N] [-threads N] Files...");
+		System.out.println("       java -cp SyntaxTrain.jar CheckServer.CheckClient [-port N] -metrics");
+		System.out.println();
+		System.out.println("-port:\t\tPort of the server on localhost, " + CheckServer.DEFAULT_PORT + " by default.");
+		System.out.println("-grammar:\tName of the grammar to check with, only needed when the server has several.");
+		System.out.println("-repeat:\tNumber of times each file is sent, only a summary is printed then.");
+		System.out.println("-threads:\tNumber of requests sent at the same time, 1 by default.");
+		System.out.println("-metrics:\tPrints the metrics of the server.");
+	}
+	
+	public static void main(String[] args)
+	{
+		int port = CheckServer.DEFAULT_PORT;
+		String grammarName = null;
+		int repeat = 0;
+		int threads = 1;
+		boolean showMetrics = false;
+		List<File> files = new ArrayList<File>();
+		boolean validNumbers = true;
+		try
+		{
+			for( int i=0;i<args.length;i++ )
+			{
+				if( args[i].equals("-port") && i + 1 < args.length )
+				{
+					port = Integer.parseInt(args[++i]);
+				}
+				else if( args[i].equals("-grammar") && i + 1 < args.length )
+				{
+					grammarName = args[++i];
+				}
+				else if( args[i].equals("-repeat") && i + 1 < args.length )
+				{
+					repeat = Integer.parseInt(args[++i]);
+				}
+				else if( args[i].equals("-threads") && i + 1 < args.length )
+				{
+					threads = Integer.parseInt(args[++i]);
+				}
+				else if( args[i].equals("-metrics") )
+				{
+					showMetrics = true;
+				}
+				else
+				{
+					files.add(new File(args[i]));
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			validNumbers = false;
+		}
+		if( !validNumbers || threads < 1 || repeat < 0 || port < 1 || port > 65535 )
+		{
+			printUsage();
+			System.exit(1);
+		}
+		if( files.isEmpty() && !showMetrics )
+		{
+			printUsage();
+			System.exit(0);
+		}
+		
+		CheckClient client = new CheckClient(port, grammarName);
+		try
+		{
+			if( repeat > 0 )
+			{
+				client.sendRepeated(files, repeat, threads);
+			}
+			else
+			{
+				for( File file : files )
+				{
+					String code = StdLibrary.readFileAsString(file);
+					if( code == null )
+					{
+						System.out.println("File could not be read: " + file.getPath());
+						continue;
+					}
+					System.out.println(file.getPath() + ": " + client.check(code));
+				}
+			}
+			if( showMetrics )
+			{
+				System.out.println(client.getMetrics());
+			}
+		}
+		catch (IOException e)
+		{
+			System.out.println("Server on port " + port + " could not be reached: " + e.toString());
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * @param grammarName name of the grammar to check with, null when the server has only one
+	 */
+	public CheckClient( int port, String grammarName )
+	{
+		baseUrl = "http://127.0.0.1:" + port;
+		this.grammarName = grammarName;
+	}
+	
+	/**
+	 * Sends the source code to the server.
+	 * @return the answer of the server as JSON, also when the server answered with an error.
+	 */
+	public String check( String code ) throws IOException
+	{
+		String url = baseUrl + "/check";
+		if( grammarName != null )
+		{
+			url += "?grammar=" + URLEncoder.encode(grammarName, "UTF-8");
+		}
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+		OutputStream out = connection.getOutputStream();
+		out.write(code.getBytes("UTF-8"));
+		out.close();
+		return readResponse(connection);
+	}
+	
+	public String getMetrics() throws IOException
+	{
+		return readResponse((HttpURLConnection) new URL(baseUrl + "/metrics").openConnection());
+	}
+	
+	private static String readResponse( HttpURLConnection connection ) throws IOException
+	{
+		InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+		String response = StdLibrary.readFileAsString(new InputStreamReader(in, "UTF-8"));
+		if( response == null )
+		{
+			throw new IOException("The answer could not be read.");
+		}
+		return response;
+	}
+	
+	/**
+	 * Sends every file the given number of times from the given number of threads and prints the throughput.
+	 */
+	public void sendRepeated( List<File> files, int repeat, int threads ) throws IOException
+	{
+		List<String> sources = new ArrayList<String>();
+		for( File file : files )
+		{
+			String code = StdLibrary.readFileAsString(file);
+			if( code == null )
+			{
+				throw new IOException("File could not be read: " + file.getPath());
+			}
+			sources.add(code);
+		}
+		
+		ExecutorService senders = Executors.newFixedThreadPool(threads);
+		List<Future<String>> answers = new ArrayList<Future<String>>();
+		long start = System.nanoTime();
+		for( int i=0;i<repeat;i++ )
+		{
+			for( final String code : sources )
+			{
+				answers.add(senders.submit(new Callable<String>()
+				{
+					public String call() throws IOException
+					{
+						return check(code);
+					}
+				}));
+			}
+		}
+		int failures = 0;
+		for( Future<String> answer : answers )
+		{
+			try
+			{
+				if( answer.get().startsWith("{\"error\"") )
+				{
+					failures++;
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException e)
+			{
+				failures++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		senders.shutdown();
+		System.out.println(answers.size() + " requests, " + failures + " failed, " + elapsed / 1000000 + "ms, "
+				+ String.format("%.1f", answers.size() / (elapsed / 1e9)) + " requests/s");
+	}
+}
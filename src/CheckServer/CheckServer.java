@@ -0,0 +1,334 @@
+package CheckServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import BatchChecker.BatchChecker;
+import Exceptions.GrammarLoadException;
+import Kernel.CheckSession;
+import Kernel.CompileResult;
+import Kernel.CompiledGrammar;
+import Library.StdLibrary;
+
+/**
+ * Local daemon checking source code sent over http, so the jvm and the grammar jars are only loaded once
+ * instead of for every check. The server only listens on the loopback address.
+ * 
+ * POST /check?grammar=Name	checks the request body (UTF-8) and answers with the result as JSON,
+ * 							the grammar can be left out when only one is loaded.
+ * GET /metrics				answers with the throughput and latency counters as JSON.
+ * 
+ * Requests are handled by a fixed number of worker threads, every worker has its own check session per grammar.
+ */
+public class CheckServer
+{
+	public static final int DEFAULT_PORT = 8765;
+	//longest source code accepted, larger requests are answered with 413
+	private static final int MAX_SOURCE_LENGTH = 16 * 1024 * 1024;
+	private final Map<String, CompiledGrammar> grammars;
+	private final ThreadPoolExecutor workers;
+	private final ThreadLocal<HashMap<String, CheckSession>> sessions;
+	private final ServerMetrics metrics;
+	private final HttpServer server;
+	
+	public static void printUsage()
+	{
+		System.out.println("Usage: java -cp SyntaxTrain.jar CheckServer.CheckServer [-port N] [-threads N] GrammarJars...");
+		System.out.println();
+		System.out.println("-port:\t\tPort on localhost to listen on, " + DEFAULT_PORT + " by default.");
+		System.out.println("-threads:\tNumber of requests checked at the same time, by default the number of processors.");
+		System.out.println("GrammarJars:\tThe grammars created by the BnfCompiler, ex. javagrammar.jar");
+	}
+	
+	public static void main(String[] args)
+	{
+		int port = DEFAULT_PORT;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<File> jars = new ArrayList<File>();
+		boolean validNumbers = true;
+		try
+		{
+			for( int i=0;i<args.length;i++ )
+			{
+				if( args[i].equals("-port") && i + 1 < args.length )
+				{
+					port = Integer.parseInt(args[++i]);
+				}
+				else if( args[i].equals("-threads") && i + 1 < args.length )
+				{
+					threads = Integer.parseInt(args[++i]);
+				}
+				else
+				{
+					jars.add(new File(args[i]));
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			validNumbers = false;
+		}
+		if( !validNumbers || threads < 1 || port < 0 || port > 65535 )
+		{
+			printUsage();
+			System.exit(1);
+		}
+		if( jars.isEmpty() )
+		{
+			printUsage();
+			System.exit(0);
+		}
+		
+		CheckServer checkServer = null;
+		try
+		{
+			checkServer = new CheckServer(jars, port, threads);
+		}
+		catch (GrammarLoadException e)
+		{
+			System.out.println(e.toString());
+		}
+		catch (IOException e)
+		{
+			System.out.println("Port " + port + " could not be opened: " + e.getMessage());
+		}
+		if( checkServer == null )
+		{
+			System.exit(1);
+		}
+		checkServer.start();
+		System.out.println("Listening on http://127.0.0.1:" + checkServer.getPort() + "/ with grammars " + checkServer.grammars.keySet());
+	}
+	
+	/**
+	 * Loads all grammars and opens the port, requests are only handled after start().
+	 * @param port port on localhost, 0 picks a free one
+	 */
+	public CheckServer( List<File> grammarJars, int port, int threads ) throws GrammarLoadException, IOException
+	{
+		Map<String, CompiledGrammar> loaded = new LinkedHashMap<String, CompiledGrammar>();
+		for( File jar : grammarJars )
+		{
+			CompiledGrammar grammar = CompiledGrammar.load(jar);
+			loaded.put(grammar.getName(), grammar);
+		}
+		grammars = Collections.unmodifiableMap(loaded);
+		sessions = new ThreadLocal<HashMap<String, CheckSession>>()
+		{
+			protected HashMap<String, CheckSession> initialValue()
+			{
+				return new HashMap<String, CheckSession>();
+			}
+		};
+		metrics = new ServerMetrics();
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger();
+			
+			public Thread newThread( Runnable runnable )
+			{
+				return new Thread(runnable, "Check worker " + count.incrementAndGet());
+			}
+		});
+		
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), 0);
+		server.setExecutor(workers);
+		server.createContext("/check", new CheckHandler());
+		server.createContext("/metrics", new MetricsHandler());
+	}
+	
+	public void start()
+	{
+		server.start();
+	}
+	
+	/**
+	 * Stops accepting requests, the ones already received are answered first.
+	 */
+	public void stop()
+	{
+		server.stop(0);
+		workers.shutdown();
+	}
+	
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+	
+	public ServerMetrics getMetrics()
+	{
+		return metrics;
+	}
+	
+	/**
+	 * @return the check session of the calling worker thread for the given grammar.
+	 */
+	private CheckSession getSession( CompiledGrammar grammar )
+	{
+		HashMap<String, CheckSession> threadSessions = sessions.get();
+		CheckSession session = threadSessions.get(grammar.getName());
+		if( session == null )
+		{
+			session = grammar.newSession();
+			threadSessions.put(grammar.getName(), session);
+		}
+		return session;
+	}
+	
+	private static void sendResponse( HttpExchange exchange, int status, String json ) throws IOException
+	{
+		byte[] body = json.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+	
+	private static String getError( String error )
+	{
+		return "{\"error\":\"" + StdLibrary.jsonEscapeString(error) + "\"}";
+	}
+	
+	/**
+	 * @return the value of the given parameter in the query of the request or null.
+	 */
+	private static String getParameter( HttpExchange exchange, String name ) throws UnsupportedEncodingException
+	{
+		String query = exchange.getRequestURI().getRawQuery();
+		if( query == null )
+		{
+			return null;
+		}
+		for( String parameter : query.split("&") )
+		{
+			int separator = parameter.indexOf('=');
+			if( separator > 0 && URLDecoder.decode(parameter.substring(0, separator), "UTF-8").equals(name) )
+			{
+				return URLDecoder.decode(parameter.substring(separator + 1), "UTF-8");
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the request body or null if it's longer than MAX_SOURCE_LENGTH.
+	 */
+	private static String readBody( HttpExchange exchange ) throws IOException
+	{
+		InputStream in = exchange.getRequestBody();
+		Reader reader = new InputStreamReader(in, "UTF-8");
+		StringBuilder body = new StringBuilder();
+		char[] buffer = new char[8192];
+		int read;
+		while( (read = reader.read(buffer)) != -1 )
+		{
+			if( body.length() + read > MAX_SOURCE_LENGTH )
+			{
+				in.close();
+				return null;
+			}
+			body.append(buffer, 0, read);
+		}
+		in.close();
+		return body.toString();
+	}
+	
+	private class CheckHandler implements HttpHandler
+	{
+		public void handle( HttpExchange exchange ) throws IOException
+		{
+			long start = System.nanoTime();
+			int chars = 0;
+			boolean failed = true;
+			try
+			{
+				if( !exchange.getRequestMethod().equals("POST") )
+				{
+					sendResponse(exchange, 405, getError("Source code has to be sent with POST."));
+					return;
+				}
+				String grammarName = getParameter(exchange, "grammar");
+				CompiledGrammar grammar = null;
+				if( grammarName != null )
+				{
+					grammar = grammars.get(grammarName);
+				}
+				else if( grammars.size() == 1 )
+				{
+					grammar = grammars.values().iterator().next();
+				}
+				if( grammar == null )
+				{
+					sendResponse(exchange, 404, getError("Unknown grammar, available are " + grammars.keySet()));
+					return;
+				}
+				String code = readBody(exchange);
+				if( code == null )
+				{
+					sendResponse(exchange, 413, getError("Source code is longer than " + MAX_SOURCE_LENGTH + " characters."));
+					return;
+				}
+				chars = code.length();
+				
+				CompileResult result = getSession(grammar).checkSyntax(code);
+				StringBuilder json = new StringBuilder();
+				json.append("{\"grammar\":\"").append(StdLibrary.jsonEscapeString(grammar.getName())).append("\",");
+				BatchChecker.appendResult(result, json);
+				json.append(",\"checkUs\":").append(result.getParseTime() / 1000).append('}');
+				sendResponse(exchange, 200, json.toString());
+				failed = false;
+			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+				sendResponse(exchange, 500, getError(e.toString()));
+			}
+			finally
+			{
+				metrics.record(System.nanoTime() - start, chars, failed);
+				exchange.close();
+			}
+		}
+	}
+	
+	private class MetricsHandler implements HttpHandler
+	{
+		public void handle( HttpExchange exchange ) throws IOException
+		{
+			try
+			{
+				//this request itself is counted as active
+				sendResponse(exchange, 200, metrics.toJson(workers.getActiveCount() - 1, workers.getQueue().size()));
+			}
+			finally
+			{
+				exchange.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package CheckServer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Throughput and latency counters of the check server, they're updated by all worker threads without locking.
+ * Latencies are counted in buckets of powers of two microseconds, which is precise enough for percentiles
+ * and keeps the memory constant no matter how many requests are handled.
+ */
+public class ServerMetrics
+{
+	private static final int BUCKETS = 40;
+	private final long startTime;
+	private final AtomicLong requests;
+	private final AtomicLong failures;
+	private final AtomicLong checkedChars;
+	private final AtomicLong totalNanos;
+	private final AtomicLong maxNanos;
+	//bucket i counts the requests which took less than 2^i microseconds
+	private final AtomicLongArray latencies;
+	
+	public ServerMetrics()
+	{
+		startTime = System.nanoTime();
+		requests = new AtomicLong();
+		failures = new AtomicLong();
+		checkedChars = new AtomicLong();
+		totalNanos = new AtomicLong();
+		maxNanos = new AtomicLong();
+		latencies = new AtomicLongArray(BUCKETS);
+	}
+	
+	/**
+	 * Records a handled request.
+	 * @param nanos time between receiving the request and sending the response
+	 * @param chars length of the checked source code
+	 * @param failed true if the request couldn't be answered with a result
+	 */
+	public void record( long nanos, int chars, boolean failed )
+	{
+		requests.incrementAndGet();
+		if( failed )
+		{
+			failures.incrementAndGet();
+		}
+		checkedChars.addAndGet(chars);
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while( nanos > max && !maxNanos.compareAndSet(max, nanos) )
+		{
+			max = maxNanos.get();
+		}
+		long micros = nanos / 1000;
+		int bucket = 64 - Long.numberOfLeadingZeros(micros);
+		latencies.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+	}
+	
+	public long getRequests()
+	{
+		return requests.get();
+	}
+	
+	public long getFailures()
+	{
+		return failures.get();
+	}
+	
+	/**
+	 * @return the upper bound of the latency of the given fraction of all requests in microseconds, ex. 0.99 for the 99th percentile.
+	 */
+	public long getPercentile( double fraction )
+	{
+		long total = 0;
+		for( int i=0;i<BUCKETS;i++ )
+		{
+			total += latencies.get(i);
+		}
+		long wanted = (long) Math.ceil(total * fraction);
+		long count = 0;
+		for( int i=0;i<BUCKETS;i++ )
+		{
+			count += latencies.get(i);
+			if( count >= wanted && count > 0 )
+			{
+				return 1L << i;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * @param active number of checks running right now
+	 * @param queued number of requests waiting for a worker
+	 * @return all counters as a JSON object.
+	 */
+	public String toJson( int active, int queued )
+	{
+		long uptime = System.nanoTime() - startTime;
+		long handled = requests.get();
+		double seconds = uptime / 1e9;
+		StringBuilder json = new StringBuilder();
+		json.append("{\"uptimeMs\":").append(uptime / 1000000);
+		json.append(",\"requests\":").append(handled);
+		json.append(",\"failures\":").append(failures.get());
+		json.append(",\"active\":").append(active);
+		json.append(",\"queued\":").append(queued);
+		json.append(",\"requestsPerSecond\":").append(String.format("%.2f", handled / seconds).replace(',', '.'));
+		json.append(",\"charsPerSecond\":").append((long) (checkedChars.get() / seconds));
+		json.append(",\"averageUs\":").append(handled == 0 ? 0 : totalNanos.get() / handled / 1000);
+		json.append(",\"maxUs\":").append(maxNanos.get() / 1000);
+		json.append(",\"p50Us\":").append(getPercentile(0.5));
+		json.append(",\"p90Us\":").append(getPercentile(0.9));
+		json.append(",\"p99Us\":").append(getPercentile(0.99));
+		return json.append('}').toString();
+	}
+}
@@ -0,0 +1,9 @@
+package Exceptions;
+
+/**
+ * Thrown inside a running compile when a newer compile was requested, the result would be thrown away anyway.
+ */
+public class CompileCancelledException extends RuntimeException
+{
+	private static final long serialVersionUID = 6107316478210235537L;
+}
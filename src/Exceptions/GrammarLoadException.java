@@ -0,0 +1,26 @@
+package Exceptions;
+
+/**
+ * Thrown when a grammar jar can't be loaded, ex. the file is missing or doesn't contain the lexer, parser or grammar xml.
+ */
+public class GrammarLoadException extends Exception
+{
+	private static final long serialVersionUID = 3871164409528336247L;
+	private String error;
+	
+	public GrammarLoadException( String error )
+	{
+		this.error = error;
+	}
+	
+	public GrammarLoadException( String error, Throwable cause )
+	{
+		super(cause);
+		this.error = error;
+	}
+	
+	public String toString()
+	{
+		return error;
+	}
+}
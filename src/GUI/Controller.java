@@ -9,18 +9,21 @@ import java.io.IOException;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
-import GuiAPI.GuiApi;
 import KernelAPI.KernelApi;
 
 public class Controller implements ActionListener, WindowListener, DocumentListener
 {
 	private static Controller instance;
+	//restarted by every edit, fires once the user stops typing
+	private Timer liveCheckTimer;
 	
 	private Controller()
 	{
+		liveCheckTimer = null;
 	}
 	
 	public void actionPerformed(ActionEvent action)
@@ -42,15 +45,26 @@ public class Controller implements ActionListener, WindowListener, DocumentListe
 		{
 			KernelApi.reloadSourceCode();
 		}
-		else if( command.equals(Variables.CHECK_SYNTAX) )
+		else if( command.equals(Variables.CHECK_SYNTAX) || command.equals(Variables.LIVE_CHECK) )
 		{
+			//the diagrams are updated once the compile is done
 			KernelApi.setSourceCode(gSourceCode.getInstance().getSourceCode());
-			GuiApi.updateDiagrams();
 		}
 		else if( command.equals(Variables.SAVE_SOURCE_FILE))
 		{
 			saveSourceCode();
 		}
+		else if( command.equals(Variables.EXPORT_DIAGRAMS))
+		{
+			final JFileChooser fileChooser = new JFileChooser(Variables.lastOpenedDirectory);
+			fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+			fileChooser.setDialogTitle("Export the shown diagrams as SVG files");
+			int retVal = fileChooser.showSaveDialog(MainScreen.getInstance());
+			if( retVal == JFileChooser.APPROVE_OPTION )
+			{
+				gGrammarDiagram.getInstance().exportDiagrams(fileChooser.getSelectedFile());
+			}
+		}
 		else if( command.equals(Variables.SHOW_HIDE_BNF_GRAMMARS))
 		{
 			gGrammarPanel.getInstance().swapBetweenShowAndHideGrammarOptions();
@@ -155,12 +169,33 @@ public class Controller implements ActionListener, WindowListener, DocumentListe
 	public void insertUpdate(DocumentEvent e)
 	{
 		sourceChanged();
+		startLiveCheck();
 	}
 
 	@Override
 	public void removeUpdate(DocumentEvent e)
 	{
 		sourceChanged();
+		startLiveCheck();
+	}
+	
+	/**
+	 * (Re)starts the timer checking the syntax once the user stops typing.
+	 * Only text changes start it, changedUpdate is also called when the error is highlighted.
+	 */
+	private void startLiveCheck()
+	{
+		if( !Variables.liveChecking )
+		{
+			return;
+		}
+		if( liveCheckTimer == null )
+		{
+			liveCheckTimer = new Timer(Variables.liveCheckingDelay, this);
+			liveCheckTimer.setActionCommand(Variables.LIVE_CHECK);
+			liveCheckTimer.setRepeats(false);
+		}
+		liveCheckTimer.restart();
 	}
 	public void sourceChanged()
 	{
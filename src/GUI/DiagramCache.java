@@ -0,0 +1,127 @@
+package GUI;
+
+import java.awt.Color;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.hydromatic.clapham.graph.ColorOverlay;
+import net.hydromatic.clapham.graph.DisplayList;
+import net.hydromatic.clapham.parser.AlternateNode;
+import net.hydromatic.clapham.parser.EbnfNode;
+import net.hydromatic.clapham.parser.IdentifierNode;
+import net.hydromatic.clapham.parser.LiteralNode;
+import net.hydromatic.clapham.parser.OptionNode;
+import net.hydromatic.clapham.parser.ProductionNode;
+import net.hydromatic.clapham.parser.RepeatNode;
+import net.hydromatic.clapham.parser.SequenceNode;
+
+/**
+ * Least recently used cache of recorded diagrams.
+ * A diagram is identified by the rule name and a fingerprint of how the rule is highlighted,
+ * the total size of the cached display lists is kept below the given number of bytes.
+ */
+public class DiagramCache
+{
+	private final long maxBytes;
+	private long usedBytes;
+	private final LinkedHashMap<String, DisplayList> diagrams;
+
+	public DiagramCache( long maxBytes )
+	{
+		this.maxBytes = maxBytes;
+		usedBytes = 0;
+		diagrams = new LinkedHashMap<String, DisplayList>(16, 0.75f, true);
+	}
+
+	public synchronized DisplayList get( String ruleName, String fingerprint )
+	{
+		return diagrams.get(getKey(ruleName, fingerprint));
+	}
+
+	public synchronized void put( String ruleName, String fingerprint, DisplayList diagram )
+	{
+		DisplayList previous = diagrams.put(getKey(ruleName, fingerprint), diagram);
+		if( previous != null )
+		{
+			usedBytes -= previous.getMemorySize();
+		}
+		usedBytes += diagram.getMemorySize();
+
+		//remove the least recently used diagrams, the newest one is always kept
+		Iterator<Map.Entry<String, DisplayList>> it = diagrams.entrySet().iterator();
+		while( usedBytes > maxBytes && diagrams.size() > 1 )
+		{
+			usedBytes -= it.next().getValue().getMemorySize();
+			it.remove();
+		}
+	}
+
+	public synchronized void clear()
+	{
+		diagrams.clear();
+		usedBytes = 0;
+	}
+
+	/**
+	 * @return a string describing the colors of all nodes in the production with the given highlights,
+	 * two productions of the same rule with the same fingerprint look exactly the same.
+	 */
+	public static String getFingerprint( ProductionNode productionNode, ColorOverlay highlights )
+	{
+		StringBuilder fingerprint = new StringBuilder();
+		addFingerprint(productionNode.expression, highlights, fingerprint);
+		return fingerprint.toString();
+	}
+
+	private static void addFingerprint( EbnfNode node, ColorOverlay highlights, StringBuilder fingerprint )
+	{
+		if( node instanceof IdentifierNode )
+		{
+			IdentifierNode identifier = (IdentifierNode) node;
+			addColors(identifier.highlightId, identifier.lineToColor, identifier.nodeColor, highlights, fingerprint);
+		}
+		else if( node instanceof LiteralNode )
+		{
+			LiteralNode literal = (LiteralNode) node;
+			addColors(literal.highlightId, literal.lineToColor, literal.nodeColor, highlights, fingerprint);
+		}
+		else if( node instanceof SequenceNode )
+		{
+			for( EbnfNode child : ((SequenceNode) node).list )
+			{
+				addFingerprint(child, highlights, fingerprint);
+			}
+		}
+		else if( node instanceof AlternateNode )
+		{
+			for( EbnfNode child : ((AlternateNode) node).list )
+			{
+				addFingerprint(child, highlights, fingerprint);
+			}
+		}
+		else if( node instanceof OptionNode )
+		{
+			addFingerprint(((OptionNode) node).n, highlights, fingerprint);
+		}
+		else if( node instanceof RepeatNode )
+		{
+			addFingerprint(((RepeatNode) node).node, highlights, fingerprint);
+		}
+	}
+
+	private static void addColors( String highlightId, Color lineColor, Color nodeColor, ColorOverlay highlights, StringBuilder fingerprint )
+	{
+		if( highlights != null && highlightId != null )
+		{
+			lineColor = highlights.getLineColor(highlightId, lineColor);
+			nodeColor = highlights.getNodeColor(highlightId, nodeColor);
+		}
+		fingerprint.append(lineColor.getRGB()).append(',').append(nodeColor.getRGB()).append(';');
+	}
+
+	private static String getKey( String ruleName, String fingerprint )
+	{
+		return ruleName + "\n" + fingerprint;
+	}
+}
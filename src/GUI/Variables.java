@@ -15,6 +15,7 @@ public class Variables
 		Variables.CHECK_SYNTAX, 
 		Variables.SHOW_HIDE_BNF_GRAMMARS,
 		Variables.SAVE_SOURCE_FILE,
+		Variables.EXPORT_DIAGRAMS,
 		Variables.HELP,
 		Variables.ABOUT};
 	
@@ -26,6 +27,7 @@ public class Variables
 		KeyStroke.getKeyStroke(KeyEvent.VK_F10, 0 ),
 		KeyStroke.getKeyStroke(KeyEvent.VK_S, KeyEvent.CTRL_DOWN_MASK),
 		null,
+		null,
 		null
 	};
 	
@@ -35,8 +37,23 @@ public class Variables
 	public final static String SAVE_SOURCE_FILE = "Save";
 	public final static String CHECK_SYNTAX = "Check syntax";
 	public final static String SHOW_HIDE_BNF_GRAMMARS = "Show/hide syntax components";
+	public final static String EXPORT_DIAGRAMS = "Export diagrams";
 	public final static String HELP = "Help";
 	public final static String ABOUT = "About";
+	public final static String LIVE_CHECK = "Live check";
+	
+	//check the syntax once the user stops typing for the given number of milliseconds (options.xml)
+	public static boolean liveChecking = false;
+	public static int liveCheckingDelay = 500;
+	
+	//show the timings of the last compile below the error trace (options.xml)
+	public static boolean showInstrumentation = false;
+	
+	//maximum memory used by the recorded diagrams kept in the cache
+	public final static long DIAGRAM_CACHE_BYTES = 64 * 1024 * 1024;
+	
+	//threads recording diagrams, one core is left for the editor and the live checking
+	public final static int DIAGRAM_RENDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 	
 	private static boolean codeChanged = false;
 	public static boolean isCodeChanged()
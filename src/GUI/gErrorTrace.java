@@ -11,9 +11,11 @@ import java.util.Stack;
 import javax.swing.JPanel;
 
 import KernelAPI.KernelApi;
+import Library.Instrumentation;
 
 /**
  * Displays a rail-road diagram of the source code. (top)
+ * Below it the timings of the last compile are shown if the instrumentation status line is enabled.
  */
 public class gErrorTrace extends JPanel
 {
@@ -44,6 +46,18 @@ public class gErrorTrace extends JPanel
 		getParent().repaint();
 	}
 	
+	/**
+	 * Repaints the status line, called once the stages of a compile are recorded.
+	 * The diagrams are drawn after the compile, so the line would show the numbers of the previous one otherwise.
+	 */
+	public void updateStatusLine()
+	{
+		if( Variables.showInstrumentation )
+		{
+			repaint();
+		}
+	}
+	
 	public void paint(Graphics g)
 	{
 		super.paint(g);
@@ -86,6 +100,17 @@ public class gErrorTrace extends JPanel
 			posX += SPACE_BETWEEN_BOXES;
 			posX += bounds.getWidth();
 		}
+		
+		if( Variables.showInstrumentation )
+		{
+			textBuffer = Instrumentation.getInstance().getStatusLine();
+			g.setColor(Color.GRAY);
+			g.setFont(new Font( "SansSerif", Font.PLAIN, 11 ));
+			bounds = g.getFontMetrics().getStringBounds(textBuffer, g);
+			posY += (int)bounds.getHeight() * 2;
+			g.drawString(textBuffer, 15, posY);
+			posX = Math.max(posX, 15 + (int)bounds.getWidth());
+		}
 		size = new Dimension(posX, posY);
 		getParent().doLayout();
 	}
@@ -4,39 +4,103 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import KernelAPI.KernelApi;
+import Library.Instrumentation;
 import Library.Lock;
+import Library.Stage;
 
 import net.hydromatic.clapham.Clapham;
 import net.hydromatic.clapham.graph.Chart;
+import net.hydromatic.clapham.graph.ColorOverlay;
+import net.hydromatic.clapham.graph.DisplayList;
 import net.hydromatic.clapham.graph.Grammar;
 import net.hydromatic.clapham.graph.Symbol;
+import net.hydromatic.clapham.parser.AlternateNode;
+import net.hydromatic.clapham.parser.EbnfNode;
+import net.hydromatic.clapham.parser.IdentifierNode;
+import net.hydromatic.clapham.parser.LiteralNode;
+import net.hydromatic.clapham.parser.OptionNode;
 import net.hydromatic.clapham.parser.ProductionNode;
+import net.hydromatic.clapham.parser.RepeatNode;
+import net.hydromatic.clapham.parser.SequenceNode;
 
 /**
  * Displays a rail-road diagram of the source code (bottom middle)
+ * The diagrams are recorded by a pool of background threads once they are scrolled into view,
+ * until then an estimated size is used for the layout.
+ * All diagrams that come into view at the same time are recorded in parallel and shown together.
+ * A recorded diagram is a display list which is replayed on every paint, so only the visible part is painted.
+ * The production nodes are the same for every compile of a grammar, so the Clapham grammar is only built once;
+ * the highlights of a compile are a color overlay which is applied while a diagram is recorded.
  */
 public class gGrammarDiagram extends JPanel
 {
 	private static final long serialVersionUID = 1333493020186127182L;
 	private static gGrammarDiagram instance = null;
-	private BufferedImage[] grammarDiagrams;
+	private DisplayList[] grammarDiagrams;
 	private HashMap<String, Integer> grammarToId;
 	private String[] grammars;
 	private boolean[] showGrammar;
 	private Lock grammarDiagramsLock;
+	private DiagramCache diagramCache;
+	//colors of each diagram, see DiagramCache.getFingerprint
+	private String[] fingerprints;
+	private ProductionNode[] grammarProductions;
+	private List<ProductionNode> productionNodes;
+	private ColorOverlay highlights;
+	//size used for the layout, estimated until the diagram is drawn
+	private Dimension[] diagramSizes;
+	private boolean[] drawRequested;
+	//size of the last diagram drawn for each rule, highlighting doesn't change the size
+	private HashMap<String, Dimension> knownSizes;
+	//increased by every update so diagrams of an old update are dropped
+	private volatile int generation;
+	
+	//the diagrams are drawn by a bounded fork/join pool, every diagram by its own task and chart
+	private ForkJoinPool renderer;
+	//the Clapham grammar is only built once a diagram which isn't cached has to be drawn,
+	//it is shared read-only by the render tasks and only built again for a different grammar
+	private final Object grammarLock = new Object();
+	private List<ProductionNode> grammarNodes;
+	private Grammar grammar;
 	
 	private gGrammarDiagram()
 	{
 		grammarDiagramsLock = new Lock();
+		diagramCache = new DiagramCache(Variables.DIAGRAM_CACHE_BYTES);
+		knownSizes = new HashMap<String, Dimension>();
+		generation = 0;
+		renderer = new ForkJoinPool(Variables.DIAGRAM_RENDER_THREADS, new ForkJoinPool.ForkJoinWorkerThreadFactory()
+		{
+			public ForkJoinWorkerThread newThread( ForkJoinPool pool )
+			{
+				//the default threads are daemon threads
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("Diagram renderer " + thread.getPoolIndex());
+				return thread;
+			}
+		}, null, false);
 		setBackground(Color.WHITE);
 		updateDiagram();
 	}
@@ -54,7 +118,12 @@ public class gGrammarDiagram extends JPanel
         grammars = new String[grammarNames.size()];
 		showGrammar = new boolean[grammarNames.size()];
 		grammarToId = new HashMap<String, Integer>();
-		grammarDiagrams = new BufferedImage[grammarNames.size()];
+		grammarDiagrams = new DisplayList[grammarNames.size()];
+		grammarProductions = new ProductionNode[grammarNames.size()];
+		fingerprints = new String[grammarNames.size()];
+		diagramSizes = new Dimension[grammarNames.size()];
+		drawRequested = new boolean[grammarNames.size()];
+		generation++;
 
 		if( KernelApi.getErrorTrace() != null ) //== null if no error
 		{
@@ -90,18 +159,26 @@ public class gGrammarDiagram extends JPanel
 		List<ProductionNode> productionNodes = KernelApi.getGrammarProductionNodes();
 		if( productionNodes == null )
 		{
+			grammarDiagramsLock.V();
 			return;
 		}
-		Grammar grammar = Clapham.buildGrammar(productionNodes);
-		List<String> nameList = new ArrayList<String>();
-		nameList.clear();
-        nameList.addAll(grammar.symbolMap.keySet());
-        
-		for( String grammarName : nameList )
+		this.productionNodes = productionNodes;
+		highlights = KernelApi.getGrammarHighlights();
+		for( ProductionNode productionNode : productionNodes )
 		{
-			BufferedImage image = drawNode(grammarName, grammar);
-			int id = grammarToId.get(grammarName);
-			grammarDiagrams[id] = image;
+			int id = grammarToId.get(productionNode.id.s);
+			grammarProductions[id] = productionNode;
+			fingerprints[id] = DiagramCache.getFingerprint(productionNode, highlights);
+		}
+		//cached diagrams are used right away, the others are drawn once paint needs them
+		for( int i=0;i<grammars.length;i++ )
+		{
+			ProductionNode productionNode = grammarProductions[i];
+			if( productionNode != null )
+			{
+				grammarDiagrams[i] = diagramCache.get(grammars[i], fingerprints[i]);
+			}
+			diagramSizes[i] = getSize(i);
 		}
 		grammarDiagramsLock.V();
 
@@ -125,12 +202,12 @@ public class gGrammarDiagram extends JPanel
 		
 		for( int i=0;i<grammars.length;i++ )
 		{
-			if(showGrammar[i])
+			if(showGrammar[i] && diagramSizes[i] != null)
 			{
-				BufferedImage image = grammarDiagrams[i];
+				Dimension size = diagramSizes[i];
 				
-				width = Math.max(image.getWidth(), width);
-	        	height += image.getHeight();
+				width = Math.max(size.width, width);
+	        	height += size.height;
 			}
 		}
 		Dimension dim = new Dimension(width, height);
@@ -146,22 +223,423 @@ public class gGrammarDiagram extends JPanel
 		{
 			return;
 		}
+		//only the diagrams inside the viewport are painted (and drawn if needed)
+		Rectangle clip = g.getClipBounds();
+		ArrayList<Integer> missing = new ArrayList<Integer>();
 		grammarDiagramsLock.P();
+		int y = 0;
 		for( int i=0;i<grammars.length;i++ )
 		{
-			if(showGrammar[i])
+			if(showGrammar[i] && diagramSizes[i] != null)
+			{
+				int height = diagramSizes[i].height;
+				if( clip == null || (y < clip.y + clip.height && y + height > clip.y) )
+				{
+					if( grammarDiagrams[i] != null )
+					{
+						Graphics2D diagramGraphics = (Graphics2D) g.create(0, y, diagramSizes[i].width, height);
+						grammarDiagrams[i].replay(diagramGraphics);
+						diagramGraphics.dispose();
+					}
+					else
+					{
+						missing.add(i);
+					}
+				}
+				y += height;
+			}
+		}
+		requestDiagrams(missing);
+		grammarDiagramsLock.V();
+	}
+	
+	/**
+	 * Asks the renderer to draw the diagrams of the given grammars in parallel,
+	 * once all of them are drawn the panel is updated on the event dispatch thread.
+	 */
+	private void requestDiagrams( List<Integer> ids )
+	{
+		final ArrayList<Integer> requested = new ArrayList<Integer>();
+		for( int id : ids )
+		{
+			if( !drawRequested[id] )
+			{
+				drawRequested[id] = true;
+				requested.add(id);
+			}
+		}
+		if( requested.isEmpty() )
+		{
+			return;
+		}
+		final int requestGeneration = generation;
+		final List<DiagramTask> tasks = new ArrayList<DiagramTask>();
+		for( int id : requested )
+		{
+			tasks.add(new DiagramTask(requestGeneration, grammars[id], fingerprints[id], productionNodes, highlights));
+		}
+		renderer.execute(new RecursiveAction()
+		{
+			private static final long serialVersionUID = 1L;
+
+			protected void compute()
+			{
+				if( requestGeneration != generation )
+				{
+					return;
+				}
+				DisplayList[] drawn = null;
+				try
+				{
+					DisplayList[] diagrams = new DisplayList[tasks.size()];
+					invokeAll(tasks);
+					for( int i=0;i<diagrams.length;i++ )
+					{
+						diagrams[i] = tasks.get(i).getRawResult();
+					}
+					drawn = diagrams;
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+				}
+				finally
+				{
+					//also when drawing failed, so the diagrams can be requested again
+					final DisplayList[] diagrams = drawn;
+					SwingUtilities.invokeLater(new Runnable()
+					{
+						public void run()
+						{
+							showDiagrams(requestGeneration, requested, diagrams);
+						}
+					});
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Draws the diagram of one grammar, the diagrams of a request are drawn by several threads at once.
+	 */
+	private class DiagramTask extends RecursiveTask<DisplayList>
+	{
+		private static final long serialVersionUID = 1L;
+		private final int requestGeneration;
+		private final String ruleName;
+		private final String fingerprint;
+		private final List<ProductionNode> nodes;
+		private final ColorOverlay highlights;
+		
+		public DiagramTask( int requestGeneration, String ruleName, String fingerprint, List<ProductionNode> nodes, ColorOverlay highlights )
+		{
+			this.requestGeneration = requestGeneration;
+			this.ruleName = ruleName;
+			this.fingerprint = fingerprint;
+			this.nodes = nodes;
+			this.highlights = highlights;
+		}
+
+		protected DisplayList compute()
+		{
+			if( requestGeneration != generation )
+			{
+				return null;
+			}
+			return getDiagram(ruleName, fingerprint, nodes, highlights);
+		}
+	}
+	
+	/**
+	 * Merges the drawn diagrams into the panel, the layout is only updated once for all of them.
+	 * @param diagrams null if drawing failed, the diagrams are requested again the next time they are painted.
+	 */
+	private void showDiagrams( int requestGeneration, List<Integer> ids, DisplayList[] diagrams )
+	{
+		grammarDiagramsLock.P();
+		if( requestGeneration != generation )
+		{
+			grammarDiagramsLock.V();
+			return;
+		}
+		if( diagrams == null )
+		{
+			for( int id : ids )
+			{
+				drawRequested[id] = false;
+			}
+			grammarDiagramsLock.V();
+			return;
+		}
+		boolean resized = false;
+		for( int i=0;i<diagrams.length;i++ )
+		{
+			int id = ids.get(i);
+			if( diagrams[i] == null )
+			{
+				drawRequested[id] = false;
+				continue;
+			}
+			grammarDiagrams[id] = diagrams[i];
+			Dimension size = getDiagramSize(diagrams[i]);
+			knownSizes.put(grammars[id], size);
+			if( !size.equals(diagramSizes[id]) )
+			{
+				resized = true;
+			}
+			diagramSizes[id] = size;
+		}
+		grammarDiagramsLock.V();
+		
+		if( resized )
+		{
+			updateDimensions();
+			revalidate();
+		}
+		repaint();
+		//the renderer recorded the drawing of these diagrams
+		gErrorTrace.getInstance().updateStatusLine();
+	}
+	
+	/**
+	 * Returns the diagram of the given grammar, it is only recorded if it isn't in the cache already.
+	 * Only called by the renderer threads.
+	 */
+	private DisplayList getDiagram( String ruleName, String fingerprint, List<ProductionNode> nodes, ColorOverlay highlights )
+	{
+		DisplayList diagram = diagramCache.get(ruleName, fingerprint);
+		if( diagram == null )
+		{
+			diagram = drawNode(ruleName, getGrammar(nodes), highlights);
+			diagramCache.put(ruleName, fingerprint, diagram);
+		}
+		return diagram;
+	}
+	
+	/**
+	 * Returns the Clapham grammar of the given production nodes, it is only built again when the nodes changed,
+	 * that is when a different grammar is loaded. Its layouts are kept with it, so they are reused as well.
+	 * The first renderer thread that needs the grammar builds it, the others wait for it.
+	 */
+	private Grammar getGrammar( List<ProductionNode> nodes )
+	{
+		synchronized( grammarLock )
+		{
+			if( grammar == null || grammarNodes != nodes )
+			{
+				long start = Instrumentation.start();
+				long allocated = Instrumentation.allocatedBytes();
+				grammar = Clapham.buildGrammar(nodes);
+				Instrumentation.record(Stage.BUILD_GRAMMAR, start, allocated);
+				grammarNodes = nodes;
+			}
+			return grammar;
+		}
+	}
+	
+	/**
+	 * Writes the diagrams which are shown as SVG files into the given directory, one file per rule.
+	 * The files are written in parallel by the renderer, the result is shown in a message once all are done.
+	 */
+	public void exportDiagrams( final File directory )
+	{
+		final List<String> ruleNames = new ArrayList<String>();
+		grammarDiagramsLock.P();
+		final List<ProductionNode> nodes = productionNodes;
+		final ColorOverlay exportHighlights = highlights;
+		if( grammars != null )
+		{
+			for( int i=0;i<grammars.length;i++ )
 			{
-				BufferedImage image = grammarDiagrams[i];
-				g.drawImage(image, 0, 0, null);
-				g.translate(0, image.getHeight());
+				if( showGrammar[i] && grammarProductions[i] != null )
+				{
+					ruleNames.add(grammars[i]);
+				}
 			}
 		}
 		grammarDiagramsLock.V();
+		if( nodes == null )
+		{
+			return;
+		}
+		renderer.execute(new RecursiveAction()
+		{
+			private static final long serialVersionUID = 1L;
+
+			protected void compute()
+			{
+				String message = ruleNames.size() + " diagrams exported to " + directory.getPath();
+				try
+				{
+					//the grammar is built before the files are written in parallel
+					Grammar exportGrammar = getGrammar(nodes);
+					List<ExportTask> tasks = new ArrayList<ExportTask>();
+					for( String ruleName : ruleNames )
+					{
+						tasks.add(new ExportTask(ruleName, exportGrammar, exportHighlights, new File(directory, ruleName + ".svg")));
+					}
+					invokeAll(tasks);
+					for( ExportTask task : tasks )
+					{
+						if( task.error != null )
+						{
+							message = "Failed to export diagrams: " + task.error.getMessage();
+							break;
+						}
+					}
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+					message = "Failed to export diagrams: " + e.getMessage();
+				}
+				final String result = message;
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					public void run()
+					{
+						JOptionPane.showMessageDialog(MainScreen.getInstance(), result);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Writes the SVG file of one rule, an error is kept until all files are written.
+	 */
+	private static class ExportTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final String ruleName;
+		private final Grammar grammar;
+		private final ColorOverlay highlights;
+		private final File file;
+		private IOException error;
+		
+		public ExportTask( String ruleName, Grammar grammar, ColorOverlay highlights, File file )
+		{
+			this.ruleName = ruleName;
+			this.grammar = grammar;
+			this.highlights = highlights;
+			this.file = file;
+		}
+
+		protected void compute()
+		{
+			try
+			{
+				writeSvg(ruleName, grammar, highlights, file);
+			}
+			catch (IOException e)
+			{
+				error = e;
+			}
+		}
 	}
 	
-	private BufferedImage drawNode(String symbolName, Grammar grammar)
+	/**
+	 * Streams the diagram of the given symbol into an SVG file, no image is drawn.
+	 */
+	private static void writeSvg( String symbolName, Grammar grammar, ColorOverlay highlights, File file ) throws IOException
 	{
-		//temporary image to draw on
+		//temporary image, only used for the font metrics of the layout
+		BufferedImage tempImg = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		Chart chart = new Chart(grammar, tempImg.createGraphics());
+		chart.setColorOverlay(highlights);
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try
+		{
+			chart.writeSvg(grammar.symbolMap.get(symbolName), out);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+	
+	/**
+	 * Returns the size of the diagram of the given grammar without drawing it.
+	 */
+	private Dimension getSize( int id )
+	{
+		if( grammarDiagrams[id] != null )
+		{
+			return getDiagramSize(grammarDiagrams[id]);
+		}
+		Dimension size = knownSizes.get(grammars[id]);
+		if( size != null )
+		{
+			return size;
+		}
+		if( grammarProductions[id] == null )
+		{
+			return null;
+		}
+		//title and margins around the rule
+		Dimension expression = estimateSize(grammarProductions[id].expression);
+		return new Dimension(expression.width + 60, expression.height + 40);
+	}
+	
+	/**
+	 * Rough size of the diagram of a node, only used for the layout until the diagram is drawn.
+	 */
+	private static Dimension estimateSize( EbnfNode node )
+	{
+		if( node instanceof IdentifierNode )
+		{
+			return new Dimension(((IdentifierNode) node).s.length() * 8 + 30, 40);
+		}
+		else if( node instanceof LiteralNode )
+		{
+			return new Dimension(((LiteralNode) node).s.length() * 8 + 30, 40);
+		}
+		else if( node instanceof SequenceNode )
+		{
+			Dimension size = new Dimension(0, 0);
+			for( EbnfNode child : ((SequenceNode) node).list )
+			{
+				Dimension childSize = estimateSize(child);
+				size.width += childSize.width;
+				size.height = Math.max(childSize.height, size.height);
+			}
+			return size;
+		}
+		else if( node instanceof AlternateNode )
+		{
+			Dimension size = new Dimension(0, 0);
+			for( EbnfNode child : ((AlternateNode) node).list )
+			{
+				Dimension childSize = estimateSize(child);
+				size.width = Math.max(childSize.width, size.width);
+				size.height += childSize.height;
+			}
+			size.width += 30;
+			return size;
+		}
+		else if( node instanceof OptionNode )
+		{
+			Dimension size = estimateSize(((OptionNode) node).n);
+			return new Dimension(size.width + 30, size.height + 20);
+		}
+		else if( node instanceof RepeatNode )
+		{
+			Dimension size = estimateSize(((RepeatNode) node).node);
+			return new Dimension(size.width + 30, size.height + 20);
+		}
+		return new Dimension(0, 0);
+	}
+	
+	/**
+	 * Lays out the diagram of the given symbol and records its drawing with the given highlights.
+	 * Each call uses its own chart, so different symbols can be drawn at the same time.
+	 * It doesn't need the panel, the benchmark calls it as well.
+	 */
+	public static DisplayList drawNode(String symbolName, Grammar grammar, ColorOverlay highlights)
+	{
+		long start = Instrumentation.start();
+		long allocated = Instrumentation.allocatedBytes();
+		//temporary image, only used for the font metrics of the layout
 		BufferedImage tempImg = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
 		Graphics2D graphics = tempImg.createGraphics();
 		
@@ -172,20 +650,19 @@ public class gGrammarDiagram extends JPanel
 		        "Symbol '" + symbolName + "' not found");
 		}
 		
-		Chart chart = new Chart(grammar, (Graphics2D) graphics);
-		chart.calcDrawing();
-		chart.drawComponent(symbol);
-		
-		//draw the final image
-		Dimension dim = chart.getDimension();
-		
-		BufferedImage finalDrawing = new BufferedImage((int)dim.getWidth(), (int)dim.getHeight() + 5, BufferedImage.TYPE_INT_RGB);
-		graphics = finalDrawing.createGraphics();
-		
-		chart = new Chart(grammar, (Graphics2D) graphics);
-		chart.calcDrawing();
-		chart.drawComponent(symbol);
-		return finalDrawing;
+		Chart chart = new Chart(grammar, graphics);
+		chart.setColorOverlay(highlights);
+		DisplayList diagram = chart.recordComponent(symbol);
+		Instrumentation.record(Stage.DRAW_NODE, start, allocated);
+		return diagram;
+	}
+	
+	/**
+	 * @return the size the diagram takes in the panel, including the space below it.
+	 */
+	private static Dimension getDiagramSize( DisplayList diagram )
+	{
+		return new Dimension(diagram.getWidth(), diagram.getHeight() + 5);
 	}
 	
 	public static synchronized gGrammarDiagram getInstance()
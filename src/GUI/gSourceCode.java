@@ -84,6 +84,15 @@ public class gSourceCode extends JPanel
 		return textPane.getText();
 	}
 	
+	/**
+	 * @return true if the editor still holds the given source code, line endings aren't compared.
+	 */
+	public boolean hasSourceCode( String code )
+	{
+		String text = textPane.getText().replace("\r", "");
+		return text.equals(code == null ? "" : code.replace("\r", ""));
+	}
+	
 	public void updateSourceCode()
 	{
 		textPane.setText(KernelApi.getSourceCode());
@@ -1,5 +1,6 @@
 package Grammar;
 
+import java.util.Arrays;
 import java.util.Stack;
 
 import org.antlr.runtime.Parser;
@@ -20,7 +21,19 @@ public abstract class BnfParser extends Parser
 	}
 	public int errorLine = -1, errorCharPositionInLine = -1;
 	public boolean popLast = false;
+	//only used by parsers generated by older versions of the BnfCompiler, use getTrace() instead
 	public Stack<Stack<String>> trace = new Stack<Stack<String>>();
+	/*
+	 * The trace of the rules being parsed as numbers (see getTraceNames).
+	 * Each rule adds its own number followed by the numbers of the elements it has matched,
+	 * traceRuleStart holds where each rule starts in the buffer.
+	 * The buffers only grow, so tracing a parse doesn't allocate anything once they are big enough.
+	 */
+	private int[] traceBuffer = new int[256];
+	private int traceSize = 0;
+	private int[] traceRuleStart = new int[64];
+	private int traceDepth = 0;
+	
 	public void displayRecognitionError(String[] tokenNames, RecognitionException e) throws RuntimeException
 	{
     		errorLine = e.line;
@@ -29,4 +42,76 @@ public abstract class BnfParser extends Parser
 	}
 	//the default call to check syntax
 	public abstract void bnf() throws RecognitionException;
+	
+	/**
+	 * @return the names of the rules and UUIDs used in the trace, indexed by their number.
+	 * null for parsers generated by older versions of the BnfCompiler, they fill trace directly.
+	 */
+	protected String[] getTraceNames()
+	{
+		return null;
+	}
+	
+	protected void pushTraceRule(int rule)
+	{
+		if( traceDepth == traceRuleStart.length )
+		{
+			traceRuleStart = Arrays.copyOf(traceRuleStart, traceDepth * 2);
+		}
+		traceRuleStart[traceDepth++] = traceSize;
+		pushTraceElement(rule);
+	}
+	
+	protected void pushTraceElement(int element)
+	{
+		if( traceSize == traceBuffer.length )
+		{
+			traceBuffer = Arrays.copyOf(traceBuffer, traceSize * 2);
+		}
+		traceBuffer[traceSize++] = element;
+	}
+	
+	protected void popTraceRule()
+	{
+		traceSize = traceRuleStart[--traceDepth];
+	}
+	
+	/**
+	 * Clears the trace and the error so the parser can be used again, the buffers are kept.
+	 * The old trace stack isn't cleared but replaced, getTrace() may have handed it out.
+	 */
+	public void resetTrace()
+	{
+		errorLine = -1;
+		errorCharPositionInLine = -1;
+		popLast = false;
+		traceSize = 0;
+		traceDepth = 0;
+		trace = new Stack<Stack<String>>();
+	}
+	
+	/**
+	 * Returns the rules which were being parsed when the parse stopped (top down),
+	 * each rule is a stack starting with the rule name followed by the UUIDs of the matched elements.
+	 */
+	public Stack<Stack<String>> getTrace()
+	{
+		String[] names = getTraceNames();
+		if( names == null )
+		{
+			return trace;
+		}
+		Stack<Stack<String>> decoded = new Stack<Stack<String>>();
+		for( int i=0;i<traceDepth;i++ )
+		{
+			int end = i + 1 < traceDepth ? traceRuleStart[i + 1] : traceSize;
+			Stack<String> stack = new Stack<String>();
+			for( int j=traceRuleStart[i];j<end;j++ )
+			{
+				stack.push(names[traceBuffer[j]]);
+			}
+			decoded.push(stack);
+		}
+		return decoded;
+	}
 }
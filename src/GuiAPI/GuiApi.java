@@ -8,20 +8,31 @@ import GUI.gGrammarDiagram;
 import GUI.gGrammarOptions;
 import GUI.gSourceCode;
 import GUI.gErrorTrace;
+import KernelAPI.KernelApi;
+import Library.Instrumentation;
+import Library.Stage;
 
 public class GuiApi
 {
 	public static void updateDiagrams()
 	{
+		long start = Instrumentation.start();
+		long allocated = Instrumentation.allocatedBytes();
 		boolean wasCodeChanged = Variables.isCodeChanged();
 		gGrammarOptions.getInstance().updateGrammars();
 		gGrammarDiagram.getInstance().updateDiagram();
 		gErrorTrace.getInstance().updateDiagram();
-		gSourceCode.getInstance().updateErrorPosition();
-		
-		Variables.setDiagramsOutOfSynch(false);
+		//the source code may have been edited while it was compiled, the result is shown but isn't in sync then
+		//and its error position would point into the edited text
+		if( gSourceCode.getInstance().hasSourceCode(KernelApi.getCompiledSourceCode()) )
+		{
+			gSourceCode.getInstance().updateErrorPosition();
+			Variables.setDiagramsOutOfSynch(false);
+		}
 		gErrorTrace.getInstance().updateSyncStatus();
 		Variables.setCodeChanged(wasCodeChanged);
+		Instrumentation.record(Stage.UPDATE_DIAGRAMS, start, allocated);
+		gErrorTrace.getInstance().updateStatusLine();
 	}
 
 	public static void updateSourceCode(String fileOpened)
@@ -18,6 +18,7 @@ import GUI.Variables;
 import GuiAPI.GuiApi;
 import Kernel.GrammarInterface;
 import KernelAPI.KernelApi;
+import Library.Instrumentation;
 import Library.StdLibrary;
 
 public class Init
@@ -35,7 +36,7 @@ public class Init
 		
 		MainScreen.getInstance();
 		
-		if( ! GrammarInterface.getInstance().loadGrammar("Grammar/" + Kernel.Variables.grammarName + ".xml") )
+		if( ! GrammarInterface.getInstance().loadGrammar(Kernel.Variables.jarPath, Kernel.Variables.grammarName) )
 		{
 			GuiApi.showMessage("An error occured while loading grammar file: " + Kernel.Variables.grammarName + ".jar.");
 			System.exit(0);
@@ -72,6 +73,47 @@ public class Init
 		{
 			XmlNode options = new XmlNode(optionsXml, "1.0");
 			Kernel.Variables.grammarName = options.getChildNode("GUI").getChildNode("path").getAttribute("grammarFile");
+			try
+			{
+				XmlNode liveCheck = options.getChildNode("GUI").getChildNode("liveCheck");
+				Variables.liveChecking = liveCheck.getBooleanAttribute("enabled");
+				try
+				{
+					int idleInterval = liveCheck.getIntAttribute("idleInterval");
+					if( idleInterval < 0 )
+					{
+						throw new NumberFormatException();
+					}
+					Variables.liveCheckingDelay = idleInterval;
+				}
+				catch (NumberFormatException e)
+				{
+					//the default delay is kept, live checking stays off until the interval is fixed
+					Variables.liveChecking = false;
+				}
+				Kernel.Variables.printCompileTimes = liveCheck.getBooleanAttribute("printTimes");
+			}
+			catch (XMLnodeDoesNotExist e)
+			{
+				//live checking is optional, it stays off
+			}
+			try
+			{
+				XmlNode instrumentation = options.getChildNode("GUI").getChildNode("instrumentation");
+				Instrumentation.getInstance().setEnabled(instrumentation.getBooleanAttribute("enabled"));
+				Variables.showInstrumentation = instrumentation.getBooleanAttribute("statusLine");
+				String csvFile = instrumentation.getAttribute("csvFile");
+				if( csvFile.length() > 0 )
+				{
+					Instrumentation.getInstance().dumpCsvOnExit(new File(csvFile));
+				}
+			}
+			catch (XMLnodeDoesNotExist e)
+			{
+				//instrumentation is optional, it stays off
+			}
+			//it can still be enabled over JMX
+			Instrumentation.getInstance().registerMBeans();
 			return;
 		}
 		catch (XMLLoadException e)
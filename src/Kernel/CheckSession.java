@@ -0,0 +1,285 @@
+package Kernel;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Stack;
+
+import net.hydromatic.clapham.graph.ColorOverlay;
+import net.hydromatic.clapham.parser.ProductionNode;
+
+import Library.Instrumentation;
+import Library.Stage;
+
+/**
+ * Checks source code against a compiled grammar and decides how the production nodes of the result are highlighted.
+ * The production nodes themselves belong to the grammar model and are the same for every check,
+ * a check only creates a ColorOverlay with the colors of the highlighted nodes.
+ * A session keeps state between checks (the lexer and parser, the highlights of the previous check),
+ * so it must only be used by one thread at a time. Sessions of the same grammar don't share anything mutable.
+ */
+public class CheckSession
+{
+	private final CompiledGrammar grammar;
+	private final SyntaxChecker checker;
+	private boolean incrementalHighlighting;
+	private boolean lastHighlightConsumed;
+	//highlights of each rule from the previous checks, see Variables.incrementalHighlighting
+	private HashMap<String, HighlightCacheEntry> highlightCache;
+	
+	public CheckSession( CompiledGrammar grammar )
+	{
+		this.grammar = grammar;
+		checker = grammar.createChecker(this);
+		incrementalHighlighting = Variables.incrementalHighlighting;
+		lastHighlightConsumed = false;
+		highlightCache = new HashMap<String, HighlightCacheEntry>();
+	}
+	
+	public CompiledGrammar getGrammar()
+	{
+		return grammar;
+	}
+	
+	public void setIncrementalHighlighting( boolean incrementalHighlighting )
+	{
+		this.incrementalHighlighting = incrementalHighlighting;
+		highlightCache.clear();
+	}
+	
+	/**
+	 * @return true if the running check isn't needed anymore, it's then stopped with a CompileCancelledException.
+	 */
+	protected boolean isCancelled()
+	{
+		return false;
+	}
+	
+	/**
+	 * Checks the syntax of the source code and highlights the production nodes showing the error.
+	 */
+	public CompileResult check( String code )
+	{
+		long start = System.nanoTime();
+		parse(code);
+		long parsed = System.nanoTime();
+		long highlightStart = Instrumentation.start();
+		long highlightAllocated = Instrumentation.allocatedBytes();
+		ColorOverlay highlights = new ColorOverlay();
+		ArrayList<String> grammars = new ArrayList<String>();
+		List<ProductionNode> productionNodes = new ArrayList<ProductionNode>();
+		if( checker.getErrorTrace() != null )
+		{
+			createHighlights(checker.getErrorTrace(), checker.getPopLast(), highlights);
+			grammars.addAll(grammar.getModel().getSortedRuleNames());
+			productionNodes = grammar.getModel().getProductionNodes();
+		}
+		Instrumentation.record(Stage.HIGHLIGHT, highlightStart, highlightAllocated);
+		long done = System.nanoTime();
+		return new CompileResult(code, checker.getErrorTrace(), checker.getErrorLine(), checker.getErrorCharPositionInLine(),
+				grammars, productionNodes, highlights, parsed - start, done - parsed);
+	}
+	
+	/**
+	 * Only checks the syntax of the source code, the result has no production nodes.
+	 */
+	public CompileResult checkSyntax( String code )
+	{
+		long start = System.nanoTime();
+		parse(code);
+		long parsed = System.nanoTime();
+		return new CompileResult(code, checker.getErrorTrace(), checker.getErrorLine(), checker.getErrorCharPositionInLine(),
+				null, null, null, parsed - start, 0);
+	}
+	
+	private void parse( String code )
+	{
+		long start = Instrumentation.start();
+		long allocated = Instrumentation.allocatedBytes();
+		checker.check(code);
+		Instrumentation.record(Stage.PARSE, start, allocated);
+	}
+	
+	/**
+	 * Highlights the nodes of every rule of the grammar according to the error trace.
+	 *
+	 * The error trace is a stack of rules which are in the error (top down).
+	 * Each rule is a stack trace indicating which steps in these rules have been taken (starting with the rule name as the first element)
+	 *
+	 * Example:
+	 * 		compilationUnit
+	 * 		typeDeclaration
+	 * 		classDeclaration 'class' IDENTIFIER '{' fieldDeclaration
+	 *
+	 * This means the last '}' is missing (if fieldDeclaration weren't there, the error would be in that.
+	 */
+	private void createHighlights( Stack<Stack<String>> errorTrace, boolean popLast, ColorOverlay highlights )
+	{
+		//index of the last trace for each rule
+		HashMap<String, Integer> traceIndex = new HashMap<String, Integer>();
+		for( int i=0;i<errorTrace.size();i++ )
+		{
+			traceIndex.put(errorTrace.get(i).firstElement(), i);
+		}
+		for(GrammarElement rule : grammar.getModel().getRules())
+		{
+			//checks if there's a trace for the given rule
+			Integer i = traceIndex.get(rule.getId());
+			if( i == null )
+			{
+				addRuleHighlights( rule, new Stack<String>(), null, false, highlights );
+				continue;
+			}
+			Stack<String> trace = errorTrace.get(i);
+			@SuppressWarnings("unchecked")
+			Stack<String> clone = (Stack<String>) trace.clone();
+			clone.remove(0); //remove the first element indicating the rule name
+			if( i == errorTrace.size() - 1 )
+			{
+				if( popLast )
+				{
+					clone.pop(); //hack, the very last element in the error trace is wrong and has to be removed.
+				}
+				addRuleHighlights( rule, clone, null, true, highlights );
+			}
+			else
+			{
+				addRuleHighlights( rule, clone, clone.lastElement(), false, highlights );
+			}
+		}
+	}
+	
+	/**
+	 * Adds the highlights of the given rule, reusing the ones from the previous check if the rule
+	 * gets exactly the same input. This way the work done per check depends on the error trace and not the grammar size.
+	 */
+	private void addRuleHighlights( GrammarElement rule, Stack<String> highlights, String errorNode, boolean markNextTokens, ColorOverlay overlay )
+	{
+		if( !incrementalHighlighting )
+		{
+			highlightRule( rule, highlights, errorNode, markNextTokens, overlay );
+			return;
+		}
+		HighlightCacheEntry entry = highlightCache.get(rule.getId());
+		if( entry != null && entry.matches(highlights, errorNode, markNextTokens, lastHighlightConsumed) )
+		{
+			lastHighlightConsumed = entry.highlightConsumedAfter;
+			overlay.putAll(entry.colors);
+			return;
+		}
+		//the highlights are consumed while highlighting the rule, so the key has to be stored first
+		entry = new HighlightCacheEntry(highlights, errorNode, markNextTokens, lastHighlightConsumed);
+		entry.colors = new ColorOverlay();
+		highlightRule( rule, highlights, errorNode, markNextTokens, entry.colors );
+		entry.highlightConsumedAfter = lastHighlightConsumed;
+		highlightCache.put(rule.getId(), entry);
+		overlay.putAll(entry.colors);
+	}
+	
+	private void highlightRule( GrammarElement rule, Stack<String> highlights, String errorNode, boolean markNextTokens, ColorOverlay overlay )
+	{
+		boolean markFirst = highlights.size() == 0;
+		highlightSequence(rule, highlights, errorNode, markNextTokens, markFirst, overlay);
+	}
+	
+	private void highlightSequence( GrammarElement element, Stack<String> highlights, String errorNode, boolean markNextTokens, boolean markThisOne, ColorOverlay overlay )
+	{
+		boolean markThis = markThisOne;
+		boolean highLightNext = false;
+		
+		for(GrammarElement child : element.getChildren())
+		{
+			highLightNext = false;
+			if( lastHighlightConsumed || markThis )
+			{
+				lastHighlightConsumed = false;
+				markThis = false;
+				highLightNext = true;
+			}
+			highlightElement(child, highlights, errorNode, markNextTokens, highLightNext, overlay);
+		}
+	}
+	
+	/**
+	 * Highlights one element of a rule, the references which aren't highlighted keep the colors of the production node (black).
+	 */
+	private void highlightElement( GrammarElement element, Stack<String> highlights, String errorNode, boolean markNextTokens, boolean markThisOne, ColorOverlay overlay )
+	{
+		boolean highLightNext = false;
+		
+		if( lastHighlightConsumed || markThisOne )
+		{
+			lastHighlightConsumed = false;
+			highLightNext = true;
+		}
+		switch( element.getType() )
+		{
+		case reference:
+			String uuid = element.getUUID();
+			if( uuid.equals(errorNode) )
+				overlay.put(uuid, Color.RED, Color.BLACK);
+			else if( (highLightNext || markThisOne) && markNextTokens )
+				overlay.put(uuid, Variables.highlightColor, Variables.highlightColor);
+			else if( highlights.remove( uuid ) )
+			{
+				if( highlights.isEmpty() )
+				{
+					lastHighlightConsumed = true;
+				}
+				overlay.put(uuid, Color.BLUE, Color.BLUE);
+			}
+			break;
+		case repeat:
+			highlightSequence(element, highlights, errorNode, markNextTokens, highLightNext, overlay);
+			lastHighlightConsumed = highLightNext; // the next token should also be highlighted
+			break;
+		case or:
+			for(GrammarElement child : element.getChildren())
+			{
+				highlightElement(child, highlights, errorNode, markNextTokens, highLightNext, overlay);
+			}
+			break;
+		case option:
+			//this section is called from the "or" node above
+			highlightSequence(element, highlights, errorNode, markNextTokens, highLightNext, overlay);
+			break;
+		case optional:
+			highlightSequence(element, highlights, errorNode, markNextTokens, highLightNext, overlay);
+			lastHighlightConsumed = highLightNext; // the next token should also be highlighted
+			break;
+		default:
+			throw new IllegalArgumentException("Unexpected grammar element: " + element.getType());
+		}
+	}
+	
+	/**
+	 * The highlights of a rule together with everything that was used to create them.
+	 * lastHighlightConsumed is carried from one rule to the next, so it is part of the input as well.
+	 */
+	private static class HighlightCacheEntry
+	{
+		private final ArrayList<String> highlights;
+		private final String errorNode;
+		private final boolean markNextTokens;
+		private final boolean highlightConsumedBefore;
+		private boolean highlightConsumedAfter;
+		private ColorOverlay colors;
+		
+		private HighlightCacheEntry( Stack<String> highlights, String errorNode, boolean markNextTokens, boolean highlightConsumedBefore )
+		{
+			this.highlights = new ArrayList<String>(highlights);
+			this.errorNode = errorNode;
+			this.markNextTokens = markNextTokens;
+			this.highlightConsumedBefore = highlightConsumedBefore;
+		}
+		
+		private boolean matches( Stack<String> highlights, String errorNode, boolean markNextTokens, boolean highlightConsumedBefore )
+		{
+			return this.markNextTokens == markNextTokens &&
+				this.highlightConsumedBefore == highlightConsumedBefore &&
+				(errorNode == null ? this.errorNode == null : errorNode.equals(this.errorNode)) &&
+				this.highlights.equals(highlights);
+		}
+	}
+}
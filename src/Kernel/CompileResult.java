@@ -0,0 +1,115 @@
+package Kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import net.hydromatic.clapham.graph.ColorOverlay;
+import net.hydromatic.clapham.parser.ProductionNode;
+
+/**
+ * Snapshot of everything the gui shows about one compile of the source code.
+ * A new snapshot is made for every compile and none of its parts are changed afterwards,
+ * so it can be handed from the compile thread to the gui without copying.
+ */
+public class CompileResult
+{
+	private final String sourceCode;
+	private final Stack<Stack<String>> errorTrace;
+	private final int errorLine, errorCharPositionInLine;
+	private final ArrayList<String> grammars;
+	private final List<ProductionNode> productionNodes;
+	private final ColorOverlay highlights;
+	//nanoseconds spent parsing the source code and highlighting the production nodes
+	private final long parseTime, componentsTime;
+	
+	public CompileResult( String sourceCode, Stack<Stack<String>> errorTrace, int errorLine, int errorCharPositionInLine,
+			ArrayList<String> grammars, List<ProductionNode> productionNodes, ColorOverlay highlights, long parseTime, long componentsTime )
+	{
+		this.sourceCode = sourceCode;
+		this.errorTrace = errorTrace;
+		this.errorLine = errorLine;
+		this.errorCharPositionInLine = errorCharPositionInLine;
+		this.grammars = grammars;
+		//not wrapped again, the gui only builds the diagram grammar again when it gets a different list
+		this.productionNodes = productionNodes;
+		this.highlights = highlights;
+		this.parseTime = parseTime;
+		this.componentsTime = componentsTime;
+	}
+	
+	/**
+	 * @return the result before anything was compiled.
+	 */
+	public static CompileResult empty()
+	{
+		return new CompileResult(null, null, -1, -1, null, null, null, 0, 0);
+	}
+	
+	/**
+	 * @return the source code which was compiled.
+	 */
+	public String getSourceCode()
+	{
+		return sourceCode;
+	}
+	
+	/**
+	 * @return the error trace (see CheckSession), it must not be modified.
+	 */
+	public Stack<Stack<String>> getErrorTrace()
+	{
+		return errorTrace;
+	}
+	
+	public int getErrorLine()
+	{
+		return errorLine;
+	}
+	
+	public int getErrorCharPositionInLine()
+	{
+		return errorCharPositionInLine;
+	}
+	
+	/**
+	 * @return the names of all rules sorted alphabetically, the list must not be modified.
+	 */
+	public ArrayList<String> getGrammars()
+	{
+		return grammars;
+	}
+	
+	/**
+	 * @return the production nodes of the rules, the same list for every compile with the same grammar.
+	 * The list must not be modified.
+	 */
+	public List<ProductionNode> getProductionNodes()
+	{
+		return productionNodes;
+	}
+
+	/**
+	 * @return the colors of the highlighted nodes in the production nodes, it must not be modified.
+	 */
+	public ColorOverlay getHighlights()
+	{
+		return highlights;
+	}
+	
+	/**
+	 * @return the nanoseconds spent parsing the source code.
+	 */
+	public long getParseTime()
+	{
+		return parseTime;
+	}
+	
+	/**
+	 * @return the nanoseconds spent highlighting the production nodes.
+	 */
+	public long getComponentsTime()
+	{
+		return componentsTime;
+	}
+}
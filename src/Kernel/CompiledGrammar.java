@@ -0,0 +1,171 @@
+package Kernel;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.antlr.runtime.Lexer;
+
+import Exceptions.GrammarLoadException;
+import Exceptions.XMLLoadException;
+import Exceptions.XMLattributeDoesNotExist;
+import Exceptions.XMLnodeDoesNotExist;
+import Grammar.BnfParser;
+import Library.StdLibrary;
+
+/**
+ * A grammar jar created by the BnfCompiler, loaded once.
+ * The lexer and parser classes and the grammar model never change after loading,
+ * so one compiled grammar can be shared by any number of threads, each checking with its own CheckSession.
+ */
+public class CompiledGrammar
+{
+	private final String name;
+	private final Class<Lexer> lexerClass;
+	private final Class<BnfParser> parserClass;
+	private final GrammarModel model;
+	
+	private CompiledGrammar( String name, Class<Lexer> lexerClass, Class<BnfParser> parserClass, GrammarModel model )
+	{
+		this.name = name;
+		this.lexerClass = lexerClass;
+		this.parserClass = parserClass;
+		this.model = model;
+	}
+	
+	/**
+	 * Loads the grammar from the jar file, the name of the grammar is the name of the jar file, ex. javagrammar.jar
+	 */
+	public static CompiledGrammar load( File jarFile ) throws GrammarLoadException
+	{
+		String grammarName = jarFile.getName();
+		if( grammarName.endsWith(".jar") )
+		{
+			grammarName = grammarName.substring(0, grammarName.length() - ".jar".length());
+		}
+		return load(jarFile, grammarName);
+	}
+	
+	/**
+	 * Loads the lexer, parser and grammar xml of the given grammar from the jar file.
+	 */
+	@SuppressWarnings("unchecked")
+	public static CompiledGrammar load( File jarFile, String grammarName ) throws GrammarLoadException
+	{
+		if( !jarFile.exists() )
+		{
+			throw new GrammarLoadException("Jar file could not be read: " + jarFile.getPath());
+		}
+		try
+		{
+			URL[] urls = {jarFile.toURI().toURL()};
+			URLClassLoader classLoader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
+			Class<Lexer> lexerClass = (Class<Lexer>) Class.forName("Grammar." + grammarName + "Lexer", true, classLoader);
+			Class<BnfParser> parserClass = (Class<BnfParser>) Class.forName("Grammar." + grammarName + "Parser", true, classLoader);
+			
+			InputStream xmlStream = classLoader.getResourceAsStream("Grammar/" + grammarName + ".xml");
+			if( xmlStream == null )
+			{
+				throw new GrammarLoadException("Grammar file not found in " + jarFile.getPath() + ": Grammar/" + grammarName + ".xml");
+			}
+			String xmlGrammar = StdLibrary.readFileAsString(xmlStream);
+			if( xmlGrammar == null )
+			{
+				throw new GrammarLoadException("Grammar file could not be read: Grammar/" + grammarName + ".xml");
+			}
+			
+			CompiledGrammar grammar = new CompiledGrammar(grammarName, lexerClass, parserClass, GrammarModel.fromXml(xmlGrammar));
+			//creating a checker once makes sure the lexer and parser can be instantiated
+			grammar.createChecker(null);
+			return grammar;
+		}
+		catch (MalformedURLException e)
+		{
+			throw new GrammarLoadException("Jar file could not be read: " + jarFile.getPath(), e);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new GrammarLoadException("Invalid Jar file: " + e.getMessage(), e);
+		}
+		catch (XMLLoadException e)
+		{
+			throw new GrammarLoadException("XmlLoadException: " + e.toString(), e);
+		}
+		catch (XMLnodeDoesNotExist e)
+		{
+			throw new GrammarLoadException("XMLnodeDoesNotExist: " + e.toString(), e);
+		}
+		catch (XMLattributeDoesNotExist e)
+		{
+			throw new GrammarLoadException("XMLattributeDoesNotExist: " + e.toString(), e);
+		}
+		catch (IllegalStateException e)
+		{
+			throw new GrammarLoadException("Invalid Jar file: " + e.getCause(), e);
+		}
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public GrammarModel getModel()
+	{
+		return model;
+	}
+	
+	public Class<Lexer> getLexerClass()
+	{
+		return lexerClass;
+	}
+	
+	public Class<BnfParser> getParserClass()
+	{
+		return parserClass;
+	}
+	
+	/**
+	 * @return a new session for checking source code, it must only be used by one thread at a time.
+	 */
+	public CheckSession newSession()
+	{
+		return new CheckSession(this);
+	}
+	
+	/**
+	 * Creates a new lexer and parser for the given session, the check is cancelled when the session says so.
+	 */
+	SyntaxChecker createChecker( final CheckSession session )
+	{
+		try
+		{
+			return new SyntaxChecker(lexerClass, parserClass)
+			{
+				protected boolean isCancelled()
+				{
+					return session != null && session.isCancelled();
+				}
+			};
+		}
+		catch (NoSuchMethodException e)
+		{
+			throw new IllegalStateException("Invalid Jar file!", e);
+		}
+		catch (InstantiationException e)
+		{
+			throw new IllegalStateException("Invalid Jar file!", e);
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalStateException("Invalid Jar file!", e);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new IllegalStateException("Invalid Jar file!", e);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package Kernel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One element of the grammar model, mirrors a single node of the grammar xml.
+ * Elements are immutable, so the same model can be shared by every compile.
+ */
+public class GrammarElement
+{
+	public enum Type {rule, reference, repeat, or, option, optional}
+	private final Type type;
+	private final String id;
+	private final String uuid;
+	private final boolean literal;
+	private final List<GrammarElement> children;
+
+	public GrammarElement( Type type, String id, String uuid, List<GrammarElement> children )
+	{
+		this.type = type;
+		this.id = id;
+		this.uuid = uuid;
+		this.literal = id != null && id.startsWith("'");
+		this.children = Collections.unmodifiableList(children);
+	}
+
+	public Type getType()
+	{
+		return type;
+	}
+
+	/**
+	 * @return the rule name (for rules and references) or null.
+	 */
+	public String getId()
+	{
+		return id;
+	}
+
+	/**
+	 * @return the UUID used in the error trace (only for references) or null.
+	 */
+	public String getUUID()
+	{
+		return uuid;
+	}
+
+	/**
+	 * @return true if this is a reference to a literal token, ex. 'class'
+	 */
+	public boolean isLiteral()
+	{
+		return literal;
+	}
+
+	public List<GrammarElement> getChildren()
+	{
+		return children;
+	}
+}
@@ -1,21 +1,145 @@
 package Kernel;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+import Exceptions.CompileCancelledException;
+import Exceptions.GrammarLoadException;
 import GuiAPI.GuiApi;
 
-public class GrammarInterface extends GrammarCompiler
+public class GrammarInterface extends GrammarBase
 {
 	private static GrammarInterface instance = null;
+	private CompiledGrammar grammar;
+	//only used inside compile(code, request), which is synchronized
+	private CheckSession session;
+	//compiles run on a single thread, so results are published in the order they were requested
+	private ExecutorService compiler;
+	//result shown by the gui, only replaced on the event dispatch thread
+	private CompileResult result;
+	//number of the last requested compile and of the running one, older compiles are cancelled
+	private volatile int latestRequest;
+	private volatile int compilingRequest;
 	
 	private GrammarInterface()
 	{
 		super();
+		result = CompileResult.empty();
+		latestRequest = 0;
+		compilingRequest = 0;
+		compiler = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread( Runnable runnable )
+			{
+				Thread thread = new Thread(runnable, "Compiler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * Loads the grammar the gui checks the source code with, see CompiledGrammar.load.
+	 * @return false if the grammar couldn't be loaded, the previous grammar is kept then.
+	 */
+	public synchronized boolean loadGrammar( String jarPath, String grammarName )
+	{
+		try
+		{
+			grammar = CompiledGrammar.load(new File(jarPath + grammarName + ".jar"), grammarName);
+		}
+		catch (GrammarLoadException e)
+		{
+			e.printStackTrace();
+			System.out.println("GrammarLoadException: " + e.toString());
+			return false;
+		}
+		session = new CheckSession(grammar)
+		{
+			protected boolean isCancelled()
+			{
+				return compilingRequest != latestRequest;
+			}
+		};
+		return true;
+	}
+	
+	public CompiledGrammar getGrammar()
+	{
+		return grammar;
 	}
 	
+	/**
+	 * Compiles the current source code in the background,
+	 * the gui is updated on the event dispatch thread once the compile is done.
+	 * A compile which is still waiting or running when a newer one is requested is dropped,
+	 * so only the latest version of the source code is shown.
+	 */
 	public void compile()
 	{
-		compileSourceCode();
-		createBnfComponents();
-		GuiApi.updateDiagrams();
+		final String code = getSourceCode();
+		final int request = ++latestRequest;
+		compiler.execute(new Runnable()
+		{
+			public void run()
+			{
+				if( request != latestRequest )
+				{
+					return;
+				}
+				final CompileResult compileResult;
+				try
+				{
+					compileResult = compile(code, request);
+				}
+				catch (CompileCancelledException e)
+				{
+					return;
+				}
+				if( Variables.printCompileTimes )
+				{
+					System.out.println("Compile: parse " + compileResult.getParseTime() / 1000 + "us, components " + compileResult.getComponentsTime() / 1000 + "us");
+				}
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					public void run()
+					{
+						if( request != latestRequest )
+						{
+							return;
+						}
+						result = compileResult;
+						GuiApi.updateDiagrams();
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Compiles the given source code on the calling thread.
+	 */
+	public CompileResult compile( String code )
+	{
+		return compile(code, latestRequest);
+	}
+	
+	private synchronized CompileResult compile( String code, int request )
+	{
+		compilingRequest = request;
+		return session.check(code);
+	}
+	
+	/**
+	 * @return the result of the last compile which was published to the gui.
+	 */
+	public CompileResult getResult()
+	{
+		return result;
 	}
 	
 	public static synchronized GrammarInterface getInstance()
@@ -0,0 +1,182 @@
+package Kernel;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import net.hydromatic.clapham.parser.AlternateNode;
+import net.hydromatic.clapham.parser.EbnfNode;
+import net.hydromatic.clapham.parser.IdentifierNode;
+import net.hydromatic.clapham.parser.LiteralNode;
+import net.hydromatic.clapham.parser.OptionNode;
+import net.hydromatic.clapham.parser.ProductionNode;
+import net.hydromatic.clapham.parser.RepeatNode;
+import net.hydromatic.clapham.parser.SequenceNode;
+
+import Exceptions.XMLLoadException;
+import Exceptions.XMLattributeDoesNotExist;
+import Exceptions.XMLnodeDoesNotExist;
+import Xml.XmlNode;
+
+/**
+ * In-memory version of the grammar xml.
+ * The xml is only parsed once when the model is created, after that the rules can be looked up by name
+ * without touching the DOM again.
+ * The production nodes of the diagrams are created once as well, a check only decides how they are highlighted.
+ */
+public class GrammarModel
+{
+	private static final Font literalFont = new Font( "Courier New", Font.PLAIN, 14 );
+	private static final Font identifierFont = new Font( "Serif", Font.PLAIN, 14 );
+	private final List<GrammarElement> rules;
+	private final HashMap<String, GrammarElement> ruleById;
+	private final List<String> sortedRuleNames;
+	private final List<ProductionNode> productionNodes;
+
+	private GrammarModel( List<GrammarElement> rules )
+	{
+		this.rules = Collections.unmodifiableList(rules);
+		ruleById = new HashMap<String, GrammarElement>();
+		ArrayList<String> names = new ArrayList<String>();
+		for( GrammarElement rule : rules )
+		{
+			ruleById.put(rule.getId(), rule);
+			names.add(rule.getId());
+		}
+		Collections.sort(names);
+		sortedRuleNames = Collections.unmodifiableList(names);
+		ArrayList<ProductionNode> nodes = new ArrayList<ProductionNode>();
+		for( GrammarElement rule : rules )
+		{
+			nodes.add(new ProductionNode(new IdentifierNode(rule.getId()), createSequence(rule)));
+		}
+		productionNodes = Collections.unmodifiableList(nodes);
+	}
+
+	public static GrammarModel fromXml( String xmlGrammar ) throws XMLLoadException, XMLnodeDoesNotExist, XMLattributeDoesNotExist
+	{
+		XmlNode xml = new XmlNode(xmlGrammar, Variables.xmlVersion);
+		List<GrammarElement> rules = new ArrayList<GrammarElement>();
+		for(XmlNode rule : xml.getChildNodes("rule"))
+		{
+			rules.add(new GrammarElement(GrammarElement.Type.rule, rule.getAttribute("ID"), null, createChildren(rule)));
+		}
+		return new GrammarModel(rules);
+	}
+
+	private static List<GrammarElement> createChildren( XmlNode xml ) throws XMLnodeDoesNotExist, XMLattributeDoesNotExist
+	{
+		List<GrammarElement> children = new ArrayList<GrammarElement>();
+		for(XmlNode child : xml.getAllChildNodes())
+		{
+			children.add(createElement(child));
+		}
+		return children;
+	}
+
+	private static GrammarElement createElement( XmlNode xml ) throws XMLnodeDoesNotExist, XMLattributeDoesNotExist
+	{
+		String nodeName = xml.getName();
+		if( nodeName.equalsIgnoreCase("rule") )
+		{
+			return new GrammarElement(GrammarElement.Type.reference, xml.getAttribute("ID"), xml.getAttribute("UUID"), new ArrayList<GrammarElement>());
+		}
+		else if( nodeName.equalsIgnoreCase("repeat"))
+		{
+			return new GrammarElement(GrammarElement.Type.repeat, null, null, createChildren(xml));
+		}
+		else if( nodeName.equalsIgnoreCase("or"))
+		{
+			List<GrammarElement> options = new ArrayList<GrammarElement>();
+			for(XmlNode child : xml.getChildNodes("option"))
+			{
+				options.add(createElement(child));
+			}
+			return new GrammarElement(GrammarElement.Type.or, null, null, options);
+		}
+		else if( nodeName.equalsIgnoreCase("option"))
+		{
+			return new GrammarElement(GrammarElement.Type.option, null, null, createChildren(xml));
+		}
+		else if( nodeName.equalsIgnoreCase("optional"))
+		{
+			return new GrammarElement(GrammarElement.Type.optional, null, null, createChildren(xml));
+		}
+		throw new XMLnodeDoesNotExist("Unknown xml node.");
+	}
+
+	private static SequenceNode createSequence( GrammarElement element )
+	{
+		List<EbnfNode> nodes = new ArrayList<EbnfNode>();
+		for( GrammarElement child : element.getChildren() )
+		{
+			nodes.add(createEbnfNode(child));
+		}
+		return new SequenceNode(nodes);
+	}
+
+	/**
+	 * Creates the diagram node of an element, the references are black and get their highlight id from the UUID,
+	 * so a ColorOverlay of a check can highlight them.
+	 */
+	private static EbnfNode createEbnfNode( GrammarElement element )
+	{
+		switch( element.getType() )
+		{
+		case reference:
+			if( element.isLiteral() )
+			{
+				return new LiteralNode(element.getId(), element.getUUID(), Color.BLACK, Color.BLACK, literalFont);
+			}
+			return new IdentifierNode(element.getId(), element.getUUID(), Color.BLACK, Color.BLACK, identifierFont);
+		case repeat:
+			return new RepeatNode(createSequence(element));
+		case or:
+			List<EbnfNode> nodes = new ArrayList<EbnfNode>();
+			for( GrammarElement child : element.getChildren() )
+			{
+				nodes.add(createEbnfNode(child));
+			}
+			return new AlternateNode(nodes);
+		case option:
+			return createSequence(element);
+		case optional:
+			return new OptionNode(createSequence(element));
+		default:
+			throw new IllegalArgumentException("Unexpected grammar element: " + element.getType());
+		}
+	}
+
+	/**
+	 * @return all rules in the order they appear in the grammar file.
+	 */
+	public List<GrammarElement> getRules()
+	{
+		return rules;
+	}
+
+	public GrammarElement getRule( String ruleName )
+	{
+		return ruleById.get(ruleName);
+	}
+
+	/**
+	 * @return the names of all rules sorted alphabetically.
+	 */
+	public List<String> getSortedRuleNames()
+	{
+		return sortedRuleNames;
+	}
+
+	/**
+	 * @return the production node of every rule in the order they appear in the grammar file.
+	 * The nodes are shared by all checks and must not be modified, the highlights of a check are in its ColorOverlay.
+	 */
+	public List<ProductionNode> getProductionNodes()
+	{
+		return productionNodes;
+	}
+}
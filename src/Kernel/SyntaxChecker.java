@@ -0,0 +1,157 @@
+package Kernel;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Stack;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Lexer;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.TokenStream;
+
+import Exceptions.CompileCancelledException;
+import Grammar.BnfParser;
+
+/**
+ * Lexer and parser of a grammar, they are created once and reset for every check.
+ * A checker isn't thread safe, each thread checking source code needs its own one.
+ */
+public class SyntaxChecker
+{
+	private ReusableStringStream input;
+	private Lexer lexer;
+	private CancellableTokenStream tokens;
+	private BnfParser parser;
+	//result of the last check, see CheckSession for the format of the error trace
+	private Stack<Stack<String>> errorTrace;
+	private int errorLine, errorCharPositionInLine;
+	private boolean popLast;
+	
+	public SyntaxChecker( Class<Lexer> lexerClass, Class<BnfParser> parserClass ) throws NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException
+	{
+		Constructor<Lexer> LexerConstructor = lexerClass.getConstructor(new Class[]{CharStream.class});
+		Constructor<BnfParser> ParserConstructor = parserClass.getConstructor(new Class[]{TokenStream.class});
+		
+		input = new ReusableStringStream();
+		lexer = LexerConstructor.newInstance(new Object[]{input});
+		tokens = new CancellableTokenStream(lexer);
+		parser = ParserConstructor.newInstance(new Object[]{tokens});
+		errorTrace = null;
+		errorLine = -1;
+		errorCharPositionInLine = -1;
+		popLast = false;
+	}
+	
+	/**
+	 * Checks the syntax of the given source code, the result is available through the getters.
+	 */
+	public void check( String code )
+	{
+		//reset the lexer, token stream and parser for the new source code
+		input.setText(code);
+		lexer.setCharStream(input);
+		tokens.setTokenSource(lexer);
+		parser.setTokenStream(tokens);
+		parser.resetTrace();
+		
+		try
+		{
+			try
+			{
+				parser.bnf();
+			}
+			catch(CompileCancelledException e)
+			{
+				throw e;
+			}
+			catch(RuntimeException e)
+			{
+				//syntax error, the trace shows where
+			}
+			errorTrace = parser.getTrace();
+			errorLine = parser.errorLine;
+			errorCharPositionInLine = parser.errorCharPositionInLine;
+			popLast = parser.popLast;
+			return;
+		}
+		catch (RecognitionException e)
+		{
+		}
+		errorTrace = null;
+	}
+	
+	/**
+	 * @return true if the running check isn't needed anymore, it's then stopped with a CompileCancelledException.
+	 */
+	protected boolean isCancelled()
+	{
+		return false;
+	}
+	
+	public Stack<Stack<String>> getErrorTrace()
+	{
+		return errorTrace;
+	}
+	
+	public int getErrorLine()
+	{
+		return errorLine;
+	}
+	
+	public int getErrorCharPositionInLine()
+	{
+		return errorCharPositionInLine;
+	}
+	
+	public boolean getPopLast()
+	{
+		return popLast;
+	}
+	
+	/**
+	 * String stream which can be filled with new text, the characters are copied into a buffer
+	 * which is only reallocated when the text doesn't fit.
+	 */
+	private static class ReusableStringStream extends ANTLRStringStream
+	{
+		public ReusableStringStream()
+		{
+			super("");
+		}
+		
+		public void setText( String text )
+		{
+			if( data.length < text.length() )
+			{
+				data = new char[text.length()];
+			}
+			text.getChars(0, text.length(), data, 0);
+			n = text.length();
+			reset();
+		}
+	}
+	
+	/**
+	 * Token stream which stops the check as soon as it's cancelled,
+	 * tokens are read lazily so this stops both the lexer and the parser.
+	 */
+	private class CancellableTokenStream extends CommonTokenStream
+	{
+		public CancellableTokenStream( TokenSource tokenSource )
+		{
+			super(tokenSource);
+		}
+		
+		public void consume()
+		{
+			if( isCancelled() )
+			{
+				throw new CompileCancelledException();
+			}
+			super.consume();
+		}
+	}
+}
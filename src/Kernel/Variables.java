@@ -13,4 +13,10 @@ public class Variables
 	public static final Color highlightColor = new Color(255,150,50);
 	
 	public static String jarPath = "";
+	
+	//reuse the production nodes of rules whose highlighting didn't change since the last compile
+	public static boolean incrementalHighlighting = true;
+	
+	//print how long each compile took (options.xml)
+	public static boolean printCompileTimes = false;
 }
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
+import net.hydromatic.clapham.graph.ColorOverlay;
 import net.hydromatic.clapham.parser.ProductionNode;
 
 import Kernel.GrammarInterface;
@@ -18,28 +19,39 @@ public class KernelApi
 		return GrammarInterface.getInstance().getSourceCode();
 	}
 	
+	//the results below are from the last compile published to the gui
 	public static Stack<Stack<String>> getErrorTrace()
 	{
-		return GrammarInterface.getInstance().getErrorTrace();
+		return GrammarInterface.getInstance().getResult().getErrorTrace();
 	}
 	
 	public static ArrayList<String> getGrammars()
 	{
-		return GrammarInterface.getInstance().getGrammars();
+		return GrammarInterface.getInstance().getResult().getGrammars();
 	}
 	
 	public static List<ProductionNode> getGrammarProductionNodes()
 	{
-		return GrammarInterface.getInstance().getProductionNodes();
+		return GrammarInterface.getInstance().getResult().getProductionNodes();
+	}
+
+	public static ColorOverlay getGrammarHighlights()
+	{
+		return GrammarInterface.getInstance().getResult().getHighlights();
+	}
+	
+	public static String getCompiledSourceCode()
+	{
+		return GrammarInterface.getInstance().getResult().getSourceCode();
 	}
 	
 	public static int getErrorLine()
 	{
-		return GrammarInterface.getInstance().getErrorLine();
+		return GrammarInterface.getInstance().getResult().getErrorLine();
 	}
 	public static int getErrorCharPositionInLine()
 	{
-		return GrammarInterface.getInstance().getErrorCharPositionInLine();
+		return GrammarInterface.getInstance().getResult().getErrorCharPositionInLine();
 	}
 	
 	public static void saveSourceCode() throws IOException
@@ -0,0 +1,224 @@
+package Library;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures the time and the bytes allocated by the calling thread for every Stage of a compile.
+ * It's off by default, then a measurement only costs a volatile read:
+ *
+ * 		long start = Instrumentation.start();
+ * 		long allocated = Instrumentation.allocatedBytes();
+ * 		...
+ * 		Instrumentation.record(Stage.PARSE, start, allocated);
+ *
+ * The counters are shown over JMX (SyntaxTrain:type=Instrumentation), in the status line of the error trace
+ * and can be written as CSV.
+ */
+public class Instrumentation implements InstrumentationMBean
+{
+	private static Instrumentation instance = null;
+	private static volatile boolean enabled = false;
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final boolean measureAllocation = threads instanceof com.sun.management.ThreadMXBean &&
+		((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+	
+	private Instrumentation()
+	{
+	}
+	
+	/**
+	 * @return the start time of a measurement, 0 if the instrumentation is disabled.
+	 */
+	public static long start()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * @return the bytes allocated by the calling thread so far, 0 if the instrumentation is disabled.
+	 */
+	public static long allocatedBytes()
+	{
+		if( !enabled || !measureAllocation )
+		{
+			return 0;
+		}
+		return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Adds a measurement to the stage, nothing is recorded if the instrumentation was disabled when it started.
+	 * @param start the value of start() when the stage started
+	 * @param allocated the value of allocatedBytes() when the stage started
+	 */
+	public static void record( Stage stage, long start, long allocated )
+	{
+		if( start == 0 )
+		{
+			return;
+		}
+		long nanos = System.nanoTime() - start;
+		long bytes = measureAllocation ? allocatedBytes() - allocated : 0;
+		stage.record(nanos, Math.max(0, bytes));
+	}
+	
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+	
+	public void setEnabled( boolean enabled )
+	{
+		if( enabled && measureAllocation )
+		{
+			((com.sun.management.ThreadMXBean) threads).setThreadAllocatedMemoryEnabled(true);
+		}
+		Instrumentation.enabled = enabled;
+	}
+	
+	/**
+	 * @return the last time and allocation of every stage which ran, ex. "parse 12.3 ms 4.1 MB | drawNode 250x 0.4 ms 20 KB"
+	 */
+	public String getStatusLine()
+	{
+		StringBuilder line = new StringBuilder();
+		for( Stage stage : Stage.values() )
+		{
+			if( stage.getCount() == 0 )
+			{
+				continue;
+			}
+			if( line.length() > 0 )
+			{
+				line.append(" | ");
+			}
+			line.append(stage.getName()).append(' ');
+			if( stage.getCount() > 1 )
+			{
+				line.append(stage.getCount()).append("x ");
+			}
+			line.append(String.format("%.1f ms", stage.getLastNanos() / 1e6));
+			if( measureAllocation )
+			{
+				line.append(' ').append(formatBytes(stage.getLastBytes()));
+			}
+		}
+		return line.toString();
+	}
+	
+	private static String formatBytes( long bytes )
+	{
+		if( bytes < 1024 )
+		{
+			return bytes + " B";
+		}
+		if( bytes < 1024 * 1024 )
+		{
+			return String.format("%.1f KB", bytes / 1024.0);
+		}
+		return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
+	
+	/**
+	 * @return a header line and one line of counters for every stage.
+	 */
+	public String getCsv()
+	{
+		StringBuilder csv = new StringBuilder();
+		csv.append("stage,count,totalNanos,averageNanos,maxNanos,lastNanos,allocatedBytes,averageBytes,lastBytes\n");
+		for( Stage stage : Stage.values() )
+		{
+			csv.append(stage.getName()).append(',');
+			csv.append(stage.getCount()).append(',');
+			csv.append(stage.getTotalNanos()).append(',');
+			csv.append(stage.getAverageNanos()).append(',');
+			csv.append(stage.getMaxNanos()).append(',');
+			csv.append(stage.getLastNanos()).append(',');
+			csv.append(stage.getAllocatedBytes()).append(',');
+			csv.append(stage.getAverageBytes()).append(',');
+			csv.append(stage.getLastBytes()).append('\n');
+		}
+		return csv.toString();
+	}
+	
+	public void dumpCsv( String fileName ) throws IOException
+	{
+		Writer out = new OutputStreamWriter(new FileOutputStream(fileName), "UTF-8");
+		try
+		{
+			out.write(getCsv());
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+	
+	/**
+	 * Writes the counters into the given file when the jvm exits.
+	 */
+	public void dumpCsvOnExit( final File file )
+	{
+		Runtime.getRuntime().addShutdownHook(new Thread("Instrumentation dump")
+		{
+			public void run()
+			{
+				try
+				{
+					dumpCsv(file.getPath());
+				}
+				catch (IOException e)
+				{
+					System.out.println("Instrumentation could not be written to " + file.getPath() + ": " + e.getMessage());
+				}
+			}
+		});
+	}
+	
+	public void reset()
+	{
+		for( Stage stage : Stage.values() )
+		{
+			stage.reset();
+		}
+	}
+	
+	/**
+	 * Registers the instrumentation and every stage with the platform MBean server.
+	 */
+	public void registerMBeans()
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			server.registerMBean(this, new ObjectName("SyntaxTrain:type=Instrumentation"));
+			for( Stage stage : Stage.values() )
+			{
+				server.registerMBean(stage, new ObjectName("SyntaxTrain:type=Instrumentation,stage=" + stage.getName()));
+			}
+		}
+		catch (JMException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	public static synchronized Instrumentation getInstance()
+	{
+		if( instance == null )
+		{
+			instance = new Instrumentation();
+		}
+		return instance;
+	}
+}
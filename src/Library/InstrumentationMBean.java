@@ -0,0 +1,21 @@
+package Library;
+
+import java.io.IOException;
+
+/**
+ * Controls the Instrumentation over JMX, ex. with jconsole.
+ */
+public interface InstrumentationMBean
+{
+	public boolean isEnabled();
+	
+	public void setEnabled( boolean enabled );
+	
+	public String getStatusLine();
+	
+	public String getCsv();
+	
+	public void dumpCsv( String fileName ) throws IOException;
+	
+	public void reset();
+}
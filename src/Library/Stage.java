@@ -0,0 +1,109 @@
+package Library;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stage of a compile measured by the Instrumentation.
+ * The counters are updated by all threads running the stage without locking,
+ * the last values are the ones of the stage that finished last.
+ */
+public enum Stage implements StageMBean
+{
+	//lexing and parsing the source code with tracing
+	PARSE("parse"),
+	//highlighting the production nodes according to the error trace
+	HIGHLIGHT("highlight"),
+	//building the Clapham grammar of the production nodes
+	BUILD_GRAMMAR("buildGrammar"),
+	//laying out and recording the diagram of one rule
+	DRAW_NODE("drawNode"),
+	//showing a compile result in the gui
+	UPDATE_DIAGRAMS("updateDiagrams");
+	
+	private final String name;
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	private volatile long lastNanos;
+	private volatile long lastBytes;
+	
+	private Stage( String name )
+	{
+		this.name = name;
+	}
+	
+	void record( long nanos, long bytes )
+	{
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		allocatedBytes.addAndGet(bytes);
+		long max = maxNanos.get();
+		while( nanos > max && !maxNanos.compareAndSet(max, nanos) )
+		{
+			max = maxNanos.get();
+		}
+		lastNanos = nanos;
+		lastBytes = bytes;
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public long getCount()
+	{
+		return count.get();
+	}
+	
+	public long getTotalNanos()
+	{
+		return totalNanos.get();
+	}
+	
+	public long getAverageNanos()
+	{
+		long n = count.get();
+		return n == 0 ? 0 : totalNanos.get() / n;
+	}
+	
+	public long getMaxNanos()
+	{
+		return maxNanos.get();
+	}
+	
+	public long getLastNanos()
+	{
+		return lastNanos;
+	}
+	
+	/**
+	 * @return the bytes allocated by the threads while running the stage, 0 if the jvm can't measure it.
+	 */
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes.get();
+	}
+	
+	public long getAverageBytes()
+	{
+		long n = count.get();
+		return n == 0 ? 0 : allocatedBytes.get() / n;
+	}
+	
+	public long getLastBytes()
+	{
+		return lastBytes;
+	}
+	
+	public void reset()
+	{
+		count.set(0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+		allocatedBytes.set(0);
+		lastNanos = 0;
+		lastBytes = 0;
+	}
+}
@@ -0,0 +1,27 @@
+package Library;
+
+/**
+ * The counters of one stage as shown by JMX, see Stage.
+ */
+public interface StageMBean
+{
+	public String getName();
+	
+	public long getCount();
+	
+	public long getTotalNanos();
+	
+	public long getAverageNanos();
+	
+	public long getMaxNanos();
+	
+	public long getLastNanos();
+	
+	public long getAllocatedBytes();
+	
+	public long getAverageBytes();
+	
+	public long getLastBytes();
+	
+	public void reset();
+}
@@ -21,6 +21,43 @@ public class StdLibrary
 		return str.replace("&quot;", "\"").replace("&amp;", "&").replace("&apos;", "'").replace("&lt;", "<").replace("&gt;", ">");
 	}
 	
+	public static String jsonEscapeString( String str )
+	{
+		StringBuilder escaped = new StringBuilder(str.length());
+		for( int i=0;i<str.length();i++ )
+		{
+			char c = str.charAt(i);
+			switch( c )
+			{
+			case '"':
+				escaped.append("\\\"");
+				break;
+			case '\\':
+				escaped.append("\\\\");
+				break;
+			case '\n':
+				escaped.append("\\n");
+				break;
+			case '\r':
+				escaped.append("\\r");
+				break;
+			case '\t':
+				escaped.append("\\t");
+				break;
+			default:
+				if( c < 0x20 )
+				{
+					escaped.append(String.format("\\u%04x", (int) c));
+				}
+				else
+				{
+					escaped.append(c);
+				}
+			}
+		}
+		return escaped.toString();
+	}
+	
 	public static String readFileAsString(InputStream inputstream)
 	{
 		if( inputstream == null )